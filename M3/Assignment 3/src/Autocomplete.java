@@ -1,4 +1,14 @@
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
 
 
 /**
@@ -6,7 +16,45 @@ import java.util.Arrays;
  */
 public class Autocomplete {
 
-    private Term[] terms;
+    // the terms, in ascending lexicographic order of query
+    private TermStore store;
+
+    // range-maximum index over the weights of the sorted terms, built on first use
+    private volatile RangeMaxIndex weights;
+
+    // optional cache of top matches by prefix, or null when disabled
+    private volatile PrefixCache cache;
+
+    // match ranges larger than this are ranked on the fork-join pool
+    private volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+
+    /** The default size above which a match range is ranked in parallel. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+
+    // a top-k query scans its range instead of walking the weight index
+    // once k is at least this fraction of the range
+    private static final int SCAN_RATIO = 16;
+
+    // optional query metrics, or null when disabled
+    private volatile AutocompleteMetrics metrics;
+
+    // per-thread comparison counter, reused so that metered searches allocate nothing extra
+    private static final ThreadLocal<int[]> COMPARISONS = ThreadLocal.withInitial(() -> new int[1]);
+
+    // optional debugging hook for allMatches, or null when disabled
+    private volatile TraceHook trace;
+
+    /**
+     * Receives the bounds and results of each allMatches call, for debugging.
+     */
+    @FunctionalInterface
+    public interface TraceHook {
+        /**
+         * Called with the prefix, the bounds of its matches ({-1, -1} if
+         * none), and the matches in the order they are returned.
+         */
+        void traced(String prefix, int first, int last, Term[] matches);
+    }
 
     /**
      * Initializes a data structure from the given array of terms.
@@ -16,8 +64,30 @@ public class Autocomplete {
         if (terms == null){
             throw new NullPointerException();
         }
-        this.terms = terms;
-        Arrays.sort(terms);
+        sort(terms);
+        this.store = new ArrayTermStore(terms);
+    }
+
+    /**
+     * Initializes a data structure over a store whose terms are already in
+     * ascending lexicographic order of query, such as a PackedTermStore.
+     * This method throws a NullPointerException if store is null.
+     */
+    public Autocomplete(TermStore store) {
+        if (store == null){
+            throw new NullPointerException();
+        }
+        this.store = store;
+    }
+
+    /**
+     * Initializes a data structure over a compiled index file, which is
+     * memory-mapped rather than parsed. See AutocompleteIndexCompiler.
+     * This method throws a NullPointerException if index is null and an
+     * IOException if the file cannot be mapped.
+     */
+    public Autocomplete(Path index) throws IOException {
+        this(MappedTermStore.open(index));
     }
 
     /**
@@ -28,21 +98,638 @@ public class Autocomplete {
         if (prefix == null){
             throw new NullPointerException();
         }
- ;
-        // Using the binary search algorithm to find the first and last index of the prefix
-        int first = BinarySearch.firstIndexOf(terms, new Term(prefix, 0), Term.byPrefixOrder(prefix.length()));
-        System.out.println(first);
-        int last = BinarySearch.lastIndexOf(terms, new Term(prefix, 0), Term.byPrefixOrder(prefix.length()));
-        System.out.println(last);
-        int size = (last - first) + 1;
+        AutocompleteMetrics m = metrics;
+        long start = (m == null) ? 0 : System.nanoTime();
+        // Using one binary search descent to find the first and last index of the prefix
+        int[] bounds = range(prefix);
+        Term[] matches = byWeight(bounds[0], bounds[1]);
+        TraceHook t = trace;
+        if (t != null) {
+            t.traced(prefix, bounds[0], bounds[1], matches);
+        }
+        if (m != null) {
+            m.recordQuery(System.nanoTime() - start, matches.length);
+        }
+        return matches;
+    }
+
+    /**
+     * Returns the k heaviest terms that start with each of the given
+     * prefixes, in descending order of weight, keyed by prefix. The prefixes
+     * are sorted and their ranges resolved in one forward sweep over the
+     * terms. Each search gallops from where the previous match began instead
+     * of starting over, through the store's prefixRangeFrom, and is recorded
+     * in the metrics like any other prefix search. The per-prefix ranking
+     * then runs in parallel.
+     * This method throws a NullPointerException if prefixes or any element is
+     * null and an IllegalArgumentException if k is less than or equal to zero.
+     */
+    public Map<String, Term[]> allMatches(Collection<String> prefixes, int k) {
+        if (prefixes == null) {
+            throw new NullPointerException();
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        Map<String, String> keyOf = new HashMap<>();
+        for (String prefix : prefixes) {
+            if (prefix == null) {
+                throw new NullPointerException();
+            }
+            keyOf.put(prefix, store.normalize(prefix));
+        }
+        String[] keys = keyOf.values().stream().distinct().sorted().toArray(String[]::new);
+        // every term before the previous key's first match sorts below the
+        // current key too, so the sweep never moves backward
+        int[][] bounds = new int[keys.length][];
+        int hint = 0;
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            bounds[i] = rangeFrom(key, hint);
+            if (bounds[i][0] != -1) {
+                hint = bounds[i][0];
+            }
+        }
+        Term[][] tops = new Term[keys.length][];
+        IntStream.range(0, keys.length).parallel()
+                .forEach(i -> tops[i] = top(bounds[i][0], bounds[i][1], k));
+        Map<String, Term[]> result = new HashMap<>();
+        for (Map.Entry<String, String> e : keyOf.entrySet()) {
+            Term[] t = tops[Arrays.binarySearch(keys, e.getValue())];
+            result.put(e.getKey(), t.clone());
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of terms that start with the given prefix, in
+     * O(log n) time and without creating Term objects. This method throws a
+     * NullPointerException if prefix is null.
+     */
+    public int countMatches(String prefix) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        int[] bounds = store.prefixRange(store.normalize(prefix), 0, store.size() - 1, null);
+        return (bounds[0] == -1) ? 0 : bounds[1] - bounds[0] + 1;
+    }
+
+    /**
+     * Returns {first, last}, the indexes of the first and last terms that
+     * start with the given prefix in ascending lexicographic order, or
+     * {-1, -1} if there are none. No Term objects are created. This method
+     * throws a NullPointerException if prefix is null.
+     */
+    public int[] matchRange(String prefix) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        return range(prefix);
+    }
+
+    /**
+     * Sets the match-range size above which allMatches and topMatches rank
+     * matches on the common fork-join pool. Smaller ranges are always ranked
+     * on the calling thread, so small queries pay no scheduling overhead.
+     * This method throws an IllegalArgumentException if threshold is less
+     * than or equal to zero.
+     */
+    public void setParallelThreshold(int threshold) {
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive");
+        }
+        parallelThreshold = threshold;
+    }
+
+    /**
+     * Installs a hook that receives the results of every allMatches call, or
+     * removes it when hook is null. Tracing is off by default.
+     */
+    public void setTraceHook(TraceHook hook) {
+        trace = hook;
+    }
+
+    /**
+     * Returns an iterator over all terms that start with the given prefix, in
+     * descending order of weight. Matches are produced lazily, so taking the
+     * first k costs O(k log k) rather than a sort of the whole match range.
+     * This method throws a NullPointerException if prefix is null.
+     */
+    public Iterator<Term> matchesByWeight(String prefix) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        int[] bounds = range(prefix);
+        return new WeightOrderIterator(weightIndex(), bounds[0], bounds[1]);
+    }
+
+    /**
+     * Returns the k heaviest terms that start with the given prefix, in
+     * descending order of weight. Fewer than k terms are returned if fewer
+     * match. When a prefix cache is enabled, results are served from it where
+     * possible. This method throws a NullPointerException if prefix is null
+     * and an IllegalArgumentException if k is less than or equal to zero.
+     */
+    public Term[] topMatches(String prefix, int k) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        AutocompleteMetrics m = metrics;
+        if (m == null) {
+            return cachedTop(prefix, k);
+        }
+        long start = System.nanoTime();
+        Term[] result = cachedTop(prefix, k);
+        m.recordQuery(System.nanoTime() - start, result.length);
+        return result;
+    }
+
+    /**
+     * Enables query metrics, if they are not already enabled, and returns
+     * them. allMatches and topMatches record their latency and result size;
+     * every prefix search records its comparison count and range size.
+     */
+    public synchronized AutocompleteMetrics enableMetrics() {
+        if (metrics == null) {
+            metrics = new AutocompleteMetrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * Records query metrics into the given metrics, replacing any already
+     * enabled. Metrics shared this way, and their JMX registration, carry
+     * over when one index is replaced by another. This method throws a
+     * NullPointerException if metrics is null.
+     */
+    public void enableMetrics(AutocompleteMetrics metrics) {
+        if (metrics == null) {
+            throw new NullPointerException();
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Disables query metrics. Metrics already returned keep their values.
+     */
+    public void disableMetrics() {
+        metrics = null;
+    }
+
+    /**
+     * Returns a snapshot of the query metrics, or null if they are disabled.
+     */
+    public AutocompleteMetrics.Snapshot snapshot() {
+        AutocompleteMetrics m = metrics;
+        return (m == null) ? null : m.snapshot();
+    }
+
+    /**
+     * Enables a prefix cache holding up to capacity prefixes, each with its
+     * depth heaviest matches, replacing any existing cache. This method
+     * throws an IllegalArgumentException if either argument is less than or
+     * equal to zero.
+     */
+    public void enablePrefixCache(int capacity, int depth) {
+        cache = new PrefixCache(capacity, depth);
+    }
+
+    /**
+     * Disables and discards the prefix cache.
+     */
+    public void disablePrefixCache() {
+        cache = null;
+    }
+
+    /**
+     * Returns the prefix cache, for reading its counters, or null if caching
+     * is disabled.
+     */
+    public PrefixCache prefixCache() {
+        return cache;
+    }
+
+    /**
+     * Returns the store this index searches.
+     */
+    TermStore store() {
+        return store;
+    }
+
+    /**
+     * Returns a new typeahead session whose prefix starts out empty. A session
+     * narrows its match range one character at a time, so each keystroke only
+     * searches the matches of the previous prefix.
+     */
+    public Session session() {
+        return new Session();
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Answers topMatches, through the prefix cache when it is enabled.
+     */
+    private Term[] cachedTop(String prefix, int k) {
+        PrefixCache c = cache;
+        if (c == null) {
+            int[] bounds = range(prefix);
+            return top(bounds[0], bounds[1], k);
+        }
+        PrefixCache.Entry e = c.get(prefix);
+        if (e == null) {
+            PrefixCache.Entry parent = c.parentOf(prefix);
+            int[] bounds = (parent == null) ? range(prefix) : range(prefix, parent.first, parent.last);
+            e = new PrefixCache.Entry(bounds[0], bounds[1], top(bounds[0], bounds[1], c.depth()));
+            c.put(prefix, e);
+        }
+        if (k <= e.top.length || e.top.length == e.last - e.first + 1) {
+            return Arrays.copyOf(e.top, Math.min(k, e.top.length));
+        }
+        return top(e.first, e.last, k);
+    }
+
+    /**
+     * Sorts terms in ascending lexicographic order of query, in parallel for
+     * large arrays. Input that is already sorted, such as a corpus written
+     * in order, is detected in one O(n) pass and left alone.
+     */
+    static void sort(Term[] terms) {
+        for (int i = 1; i < terms.length; i++) {
+            if (terms[i - 1].compareTo(terms[i]) > 0) {
+                Arrays.parallelSort(terms);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns {first, last}, the bounds of the terms that start with prefix,
+     * or {-1, -1} if there are none. Comparisons run against the store in
+     * place, without creating Term objects.
+     */
+    private int[] range(String prefix) {
+        return range(prefix, 0, store.size() - 1);
+    }
+
+    /**
+     * Returns the bounds of the terms that start with prefix, searching only
+     * indexes first..last, or {-1, -1} if there are none. The search itself
+     * is the store's, so stores with their own layout can search it their way.
+     */
+    private int[] range(String prefix, int first, int last) {
+        if (first < 0) {
+            return new int[] {-1, -1};
+        }
+        String key = store.normalize(prefix);
+        AutocompleteMetrics m = metrics;
+        if (m == null) {
+            return store.prefixRange(key, first, last, null);
+        }
+        int[] comparisons = COMPARISONS.get();
+        comparisons[0] = 0;
+        int[] bounds = store.prefixRange(key, first, last, comparisons);
+        m.recordSearch(comparisons[0], (bounds[0] == -1) ? 0 : bounds[1] - bounds[0] + 1);
+        return bounds;
+    }
+
+    /**
+     * Returns the bounds of the terms that start with the normalized key, or
+     * {-1, -1} if there are none. The search gallops forward from hint, and
+     * every term before hint must sort below key.
+     */
+    private int[] rangeFrom(String key, int hint) {
+        int last = store.size() - 1;
+        AutocompleteMetrics m = metrics;
+        if (m == null) {
+            return store.prefixRangeFrom(key, hint, last, null);
+        }
+        int[] comparisons = COMPARISONS.get();
+        comparisons[0] = 0;
+        int[] bounds = store.prefixRangeFrom(key, hint, last, comparisons);
+        m.recordSearch(comparisons[0], (bounds[0] == -1) ? 0 : bounds[1] - bounds[0] + 1);
+        return bounds;
+    }
+
+    /**
+     * Returns the terms at indexes first..last in descending order of weight,
+     * or an empty array if first is -1.
+     */
+    private Term[] byWeight(int first, int last) {
+        int size = (first == -1) ? 0 : (last - first) + 1;
         Term[] matches = new Term[size];
-        if (first != -1 && last != -1){
-            System.arraycopy(terms, first, matches, 0, size);
+        for (int i = 0; i < size; i++) {
+            matches[i] = store.termAt(first + i);
+        }
+        if (size > parallelThreshold) {
+            Arrays.parallelSort(matches, Term.byDescendingWeightOrder());
+        } else {
+            Arrays.sort(matches, Term.byDescendingWeightOrder());
         }
-        Arrays.sort(matches, Term.byDescendingWeightOrder());
-        System.out.println(Arrays.toString(matches));
         return matches;
     }
 
-}
+    /**
+     * Returns the k heaviest terms at indexes first..last in descending order
+     * of weight, or an empty array if first is -1.
+     */
+    private Term[] top(int first, int last, int k) {
+        int size = (first == -1) ? 0 : (last - first) + 1;
+        if (size > parallelThreshold && k >= size / SCAN_RATIO) {
+            // The weight-index walk visits k scattered positions at O(log k)
+            // each. When k is a sizable share of a large range, a sequential
+            // scan split across cores finishes sooner.
+            int parallelism = ForkJoinPool.commonPool().getParallelism();
+            int chunk = Math.max(4096, size / (4 * parallelism));
+            int[] best = ForkJoinPool.commonPool().invoke(new TopKTask(first, last, k, chunk));
+            Term[] result = new Term[best.length];
+            for (int i = 0; i < best.length; i++) {
+                result[i] = store.termAt(best[i]);
+            }
+            return result;
+        }
+        Term[] result = new Term[Math.min(k, size)];
+        Iterator<Term> it = new WeightOrderIterator(weightIndex(), first, last);
+        for (int i = 0; i < result.length; i++) {
+            result[i] = it.next();
+        }
+        return result;
+    }
+
+    /**
+     * Builds the range-maximum index over the weights now rather than on first
+     * use. An owner that publishes this index to concurrent readers calls it
+     * beforehand, so no reader waits on the build.
+     */
+    void buildWeightIndex() {
+        weightIndex();
+    }
+
+    /**
+     * Returns the range-maximum index over the weights, building it on first
+     * use so that opening a large store stays cheap for callers that never
+     * ask for weight-ordered results.
+     */
+    private RangeMaxIndex weightIndex() {
+        RangeMaxIndex w = weights;
+        if (w == null) {
+            synchronized (this) {
+                w = weights;
+                if (w == null) {
+                    w = new RangeMaxIndex(store.weights());
+                    weights = w;
+                }
+            }
+        }
+        return w;
+    }
+
+
+    ////////////////////
+    // Nested classes //
+    ////////////////////
+
+    /**
+     * An incremental typeahead query. The session keeps the match range of
+     * every prefix it has seen, so append searches only inside the previous
+     * range and backspace restores the previous range in O(1). A session is
+     * not safe for use by more than one thread.
+     */
+    public class Session {
+        private final StringBuilder prefix = new StringBuilder();
+        private int[] firsts = new int[16];
+        private int[] lasts = new int[16];
+        private int depth = 0;
+
+        private Session() {
+            firsts[0] = (store.size() == 0) ? -1 : 0;
+            lasts[0] = store.size() - 1;
+        }
+
+        /**
+         * Appends c to the prefix and narrows the match range.
+         */
+        public void append(char c) {
+            prefix.append(c);
+            int[] bounds = range(prefix.toString(), firsts[depth], lasts[depth]);
+            if (depth + 1 == firsts.length) {
+                firsts = Arrays.copyOf(firsts, firsts.length * 2);
+                lasts = Arrays.copyOf(lasts, lasts.length * 2);
+            }
+            depth++;
+            firsts[depth] = bounds[0];
+            lasts[depth] = bounds[1];
+        }
+
+        /**
+         * Removes the last character of the prefix and restores the previous
+         * match range. This method throws an IllegalStateException if the
+         * prefix is empty.
+         */
+        public void backspace() {
+            if (depth == 0) {
+                throw new IllegalStateException("Prefix is already empty");
+            }
+            prefix.setLength(prefix.length() - 1);
+            depth--;
+        }
+
+        /**
+         * Returns the current prefix.
+         */
+        public String prefix() {
+            return prefix.toString();
+        }
+
+        /**
+         * Returns the number of terms that start with the current prefix.
+         */
+        public int matchCount() {
+            return (firsts[depth] == -1) ? 0 : lasts[depth] - firsts[depth] + 1;
+        }
+
+        /**
+         * Returns all terms that start with the current prefix, in descending
+         * order of weight.
+         */
+        public Term[] allMatches() {
+            return byWeight(firsts[depth], lasts[depth]);
+        }
+
+        /**
+         * Returns an iterator over the terms that start with the current
+         * prefix, in descending order of weight.
+         */
+        public Iterator<Term> matchesByWeight() {
+            return new WeightOrderIterator(weightIndex(), firsts[depth], lasts[depth]);
+        }
+    }
+
+    /**
+     * Yields the terms at indexes first..last in descending order of weight,
+     * in the order given by RangeMaxIndex.descending.
+     */
+    private class WeightOrderIterator implements Iterator<Term> {
+        private final PrimitiveIterator.OfInt indexes;
+
+        WeightOrderIterator(RangeMaxIndex weights, int first, int last) {
+            this.indexes = weights.descending(first, last);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return indexes.hasNext();
+        }
+
+        @Override
+        public Term next() {
+            return store.termAt(indexes.nextInt());
+        }
+    }
+
+    /**
+     * Finds the indexes of the k heaviest terms in a range, heaviest first.
+     * Ranges no larger than chunk are scanned with a bounded min-heap; larger
+     * ones are split in half, ranked in parallel, and their results merged.
+     */
+    private class TopKTask extends RecursiveTask<int[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final int k;
+        private final int chunk;
+
+        TopKTask(int lo, int hi, int k, int chunk) {
+            this.lo = lo;
+            this.hi = hi;
+            this.k = k;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (hi - lo + 1 <= chunk) {
+                return scan();
+            }
+            int mid = lo + (hi - lo) / 2;
+            TopKTask left = new TopKTask(lo, mid, k, chunk);
+            left.fork();
+            int[] right = new TopKTask(mid + 1, hi, k, chunk).compute();
+            return merge(left.join(), right);
+        }
 
+        /** Scans lo..hi keeping the k heaviest in a min-heap, then drains it heaviest first. */
+        private int[] scan() {
+            int[] heap = new int[Math.min(k, hi - lo + 1)];
+            int n = 0;
+            for (int i = lo; i <= hi; i++) {
+                if (n < heap.length) {
+                    heap[n] = i;
+                    siftUp(heap, n++);
+                } else if (store.weightAt(i) > store.weightAt(heap[0])) {
+                    heap[0] = i;
+                    siftDown(heap, n);
+                }
+            }
+            int[] result = new int[n];
+            while (n > 0) {
+                result[n - 1] = heap[0];
+                heap[0] = heap[--n];
+                siftDown(heap, n);
+            }
+            return result;
+        }
+
+        /** Merges two heaviest-first lists, keeping the first k. */
+        private int[] merge(int[] a, int[] b) {
+            int[] result = new int[Math.min(k, a.length + b.length)];
+            int i = 0;
+            int j = 0;
+            for (int r = 0; r < result.length; r++) {
+                if (j == b.length || (i < a.length && store.weightAt(a[i]) >= store.weightAt(b[j]))) {
+                    result[r] = a[i++];
+                } else {
+                    result[r] = b[j++];
+                }
+            }
+            return result;
+        }
+
+        private void siftUp(int[] heap, int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (store.weightAt(heap[parent]) <= store.weightAt(heap[i])) {
+                    return;
+                }
+                swap(heap, parent, i);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int n) {
+            int i = 0;
+            while (2 * i + 1 < n) {
+                int child = 2 * i + 1;
+                if (child + 1 < n && store.weightAt(heap[child + 1]) < store.weightAt(heap[child])) {
+                    child++;
+                }
+                if (store.weightAt(heap[i]) <= store.weightAt(heap[child])) {
+                    return;
+                }
+                swap(heap, i, child);
+                i = child;
+            }
+        }
+
+        private void swap(int[] heap, int i, int j) {
+            int t = heap[i];
+            heap[i] = heap[j];
+            heap[j] = t;
+        }
+    }
+
+    /**
+     * Adapts a sorted Term[] to the TermStore interface, handing back the
+     * caller's own Term objects.
+     */
+    private static class ArrayTermStore implements TermStore {
+        private final Term[] terms;
+
+        ArrayTermStore(Term[] terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public int size() {
+            return terms.length;
+        }
+
+        @Override
+        public String queryAt(int i) {
+            return terms[i].getQuery();
+        }
+
+        @Override
+        public long weightAt(int i) {
+            return terms[i].getWeight();
+        }
+
+        @Override
+        public Term termAt(int i) {
+            return terms[i];
+        }
+
+        @Override
+        public int comparePrefix(int i, String prefix) {
+            return Term.comparePrefixes(terms[i].getQuery(), prefix, prefix.length());
+        }
+    }
+
+}
@@ -1,4 +1,4 @@
-import java.io.File;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Scanner;
 
@@ -12,23 +12,14 @@ public class AutocompleteClient {
         Term[] terms = null;
         String filename = "/Users/admin/Desktop/COMP-2210/M3/Assignment 3/src/norvig-count1w.txt";
         try {
-            Scanner scanner = new Scanner(new File(filename));
-            int numLines = scanner.nextInt();
             System.out.println("Added file, parsing...");
-            terms = new Term[numLines];
-            for (int i = 0; i < numLines; i++) {
-                String query = scanner.next().strip();
-                long weight = scanner.nextLong();
-                scanner.nextLine();
-                terms[i] = new Term(query, weight);
-            }
+            terms = CorpusLoader.load(Paths.get(filename));
             System.out.println("Parsing Completed...");
-            scanner.close();
         } catch (Exception e) {
             System.out.println("*****ERROR**** " + e.toString());
         }
         System.out.println("Looking for autocomplete");
-        Autocomplete auto = new Autocomplete(terms);
+        Autocomplete auto = new Autocomplete(PackedTermStore.of(terms));
         Scanner scnr = new Scanner(System.in);
         Term[] matches = auto.allMatches(scnr.next());
         for (Term term : matches) {
@@ -0,0 +1,307 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Holds the current Autocomplete for a corpus file and replaces it when the
+ * file changes.
+ *
+ * A rebuild runs on a background thread while queries continue against the
+ * old index. The finished index is then published with an atomic reference
+ * swap. Callers should call get() once per query and use that instance
+ * throughout, so an in-flight query always finishes on the snapshot it
+ * started with. The file may be a text corpus or, if its name ends in .idx,
+ * a compiled index.
+ *
+ * Every new index is a fresh Autocomplete, so settings made on the old one,
+ * such as a prefix cache, metrics or a trace hook, do not carry over by
+ * themselves. A configurer passed to the constructor is applied to each new
+ * index before it is published and should make those settings. To keep one
+ * set of metrics and one JMX registration across reloads, create the metrics
+ * once and pass them to Autocomplete.enableMetrics(AutocompleteMetrics) in
+ * the configurer.
+ */
+public class AutocompleteHolder implements AutoCloseable {
+
+    /** Timings and heap usage for one reload. */
+    public static final class ReloadStats {
+        /** Time spent loading and indexing the new corpus. */
+        public final long rebuildMillis;
+        /** Time spent publishing the new index. */
+        public final long swapNanos;
+        /** Heap in use just before the rebuild started. */
+        public final long heapBeforeBytes;
+        /** Heap in use just before the swap, while both indexes are live. */
+        public final long heapOverlapBytes;
+        /** The number of terms in the new index. */
+        public final int terms;
+
+        ReloadStats(long rebuildMillis, long swapNanos, long heapBeforeBytes, long heapOverlapBytes, int terms) {
+            this.rebuildMillis = rebuildMillis;
+            this.swapNanos = swapNanos;
+            this.heapBeforeBytes = heapBeforeBytes;
+            this.heapOverlapBytes = heapOverlapBytes;
+            this.terms = terms;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("terms=%d rebuild=%dms swap=%dns heapBefore=%dMB heapOverlap=%dMB",
+                    terms, rebuildMillis, swapNanos, heapBeforeBytes >> 20, heapOverlapBytes >> 20);
+        }
+    }
+
+    // the file the index is built from
+    private final Path file;
+
+    // applied to every new index before it is published, or null
+    private final Consumer<Autocomplete> configurer;
+
+    // the index currently being served
+    private final AtomicReference<Autocomplete> current;
+
+    // runs rebuilds one at a time
+    private final ExecutorService rebuilder;
+
+    // watches the file's directory once start() is called, or null
+    private WatchService watcher;
+
+    // the pending rebuild, or null; guarded by this
+    private CompletableFuture<ReloadStats> pending;
+
+    // true if a reload was requested after the pending rebuild began reading
+    // the file; guarded by this
+    private boolean dirty;
+
+    // the stats of the most recent reload, or null
+    private volatile ReloadStats last;
+
+    // notified after each successful reload, or null
+    private volatile Consumer<ReloadStats> listener;
+
+    /**
+     * Builds the initial index from file on the calling thread. This method
+     * throws a NullPointerException if file is null and an IOException if the
+     * file cannot be loaded.
+     */
+    public AutocompleteHolder(Path file) throws IOException {
+        this(file, null);
+    }
+
+    /**
+     * Builds the initial index from file on the calling thread, applying
+     * configurer to it and to every later index before it is published. A
+     * null configurer is ignored. This method throws a NullPointerException
+     * if file is null and an IOException if the file cannot be loaded.
+     */
+    public AutocompleteHolder(Path file, Consumer<Autocomplete> configurer) throws IOException {
+        if (file == null) {
+            throw new NullPointerException();
+        }
+        this.file = file.toAbsolutePath();
+        this.configurer = configurer;
+        this.current = new AtomicReference<>(build());
+        this.rebuilder = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "autocomplete-rebuild");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Returns the index currently being served.
+     */
+    public Autocomplete get() {
+        return current.get();
+    }
+
+    /**
+     * Returns the stats of the most recent reload, or null if there has been
+     * none.
+     */
+    public ReloadStats lastReload() {
+        return last;
+    }
+
+    /**
+     * Sets a listener called on the rebuild thread after each successful
+     * reload, or removes it when listener is null.
+     */
+    public void setReloadListener(Consumer<ReloadStats> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching the file and reloading whenever it is modified or
+     * replaced. This method throws an IOException if the directory cannot be
+     * watched.
+     */
+    public synchronized void start() throws IOException {
+        if (watcher != null) {
+            return;
+        }
+        watcher = FileSystems.getDefault().newWatchService();
+        file.getParent().register(watcher,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        WatchService w = watcher;
+        Thread t = new Thread(() -> watch(w), "autocomplete-watch");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Starts a rebuild on the background thread and returns a future for its
+     * stats. If a rebuild is already pending, it is marked to run once more
+     * when it finishes, and its future is returned. Either way the future
+     * completes only after an index built from a read of the file begun after
+     * this call has been published. The future completes exceptionally if the
+     * file cannot be loaded; the old index stays in use.
+     */
+    public synchronized CompletableFuture<ReloadStats> reload() {
+        CompletableFuture<ReloadStats> p = pending;
+        if (p != null) {
+            dirty = true;
+            return p;
+        }
+        p = CompletableFuture.supplyAsync(this::rebuildUntilCurrent, rebuilder);
+        pending = p;
+        CompletableFuture<ReloadStats> mine = p;
+        p.whenComplete((stats, error) -> {
+            // normally already cleared by rebuildUntilCurrent; this covers errors
+            synchronized (this) {
+                if (pending == mine) {
+                    pending = null;
+                }
+            }
+        });
+        return p;
+    }
+
+    /**
+     * Stops watching the file and the rebuild thread. The current index stays
+     * usable.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        rebuilder.shutdownNow();
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /** Loads and indexes the file, then applies the configurer. */
+    private Autocomplete build() throws IOException {
+        Autocomplete ac;
+        if (file.toString().endsWith(".idx")) {
+            ac = new Autocomplete(file);
+        } else {
+            ac = new Autocomplete(PackedTermStore.of(CorpusLoader.load(file)));
+        }
+        if (configurer != null) {
+            configurer.accept(ac);
+        }
+        return ac;
+    }
+
+    /**
+     * Rebuilds until no reload has been requested since the last rebuild
+     * began, so a change that arrives while the file is being read is never
+     * lost. The pending future is cleared in the same step that decides to
+     * stop, so a later reload always starts a new rebuild.
+     */
+    private ReloadStats rebuildUntilCurrent() {
+        while (true) {
+            synchronized (this) {
+                dirty = false;
+            }
+            try {
+                ReloadStats stats = rebuild();
+                synchronized (this) {
+                    if (!dirty) {
+                        pending = null;
+                        return stats;
+                    }
+                }
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    if (!dirty) {
+                        pending = null;
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Rebuilds the index, swaps it in, and reports the cost. */
+    private ReloadStats rebuild() {
+        Runtime rt = Runtime.getRuntime();
+        long heapBefore = rt.totalMemory() - rt.freeMemory();
+        long start = System.nanoTime();
+        Autocomplete next;
+        try {
+            next = build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        long built = System.nanoTime();
+        long heapOverlap = rt.totalMemory() - rt.freeMemory();
+        current.set(next);
+        long swapped = System.nanoTime();
+        ReloadStats stats = new ReloadStats((built - start) / 1_000_000, swapped - built,
+                heapBefore, heapOverlap, next.store().size());
+        last = stats;
+        Consumer<ReloadStats> l = listener;
+        if (l != null) {
+            l.accept(stats);
+        }
+        return stats;
+    }
+
+    /** Reloads whenever the watched file changes, until the watcher is closed. */
+    private void watch(WatchService w) {
+        Path name = file.getFileName();
+        try {
+            while (true) {
+                WatchKey key = w.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (name.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    // let the writer finish; a burst of events becomes one reload
+                    Thread.sleep(250);
+                    WatchKey more;
+                    while ((more = w.poll()) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    reload();
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed: stop watching
+        }
+    }
+
+}
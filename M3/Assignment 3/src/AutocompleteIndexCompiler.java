@@ -0,0 +1,98 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Compiles a text corpus into a binary index file that MappedTermStore can
+ * open without parsing or sorting.
+ *
+ * File layout (big-endian), version 1:
+ *   int   magic "ACIX"
+ *   int   version
+ *   int   n, the number of terms
+ *   int   character encoding, 0 for Latin-1 bytes or 1 for UTF-16 chars
+ *   long  total number of query characters
+ *   long  weights[n], in ascending lexicographic order of query
+ *   int   offsets[n + 1], where query i occupies [offsets[i], offsets[i + 1])
+ *   chars every query, concatenated
+ */
+public class AutocompleteIndexCompiler {
+
+    /**
+     * Writes the terms of the given sorted store to file. The index is first
+     * written to a temporary sibling and then moved into place, so a reader
+     * never maps a half-written file. This method throws a
+     * NullPointerException if any parameter is null.
+     */
+    public static void compile(TermStore store, Path file) throws IOException {
+        if (store == null || file == null) {
+            throw new NullPointerException();
+        }
+        int n = store.size();
+        long chars = 0;
+        boolean narrow = true;
+        for (int i = 0; i < n; i++) {
+            String q = store.queryAt(i);
+            chars += q.length();
+            for (int c = 0; narrow && c < q.length(); c++) {
+                narrow = q.charAt(c) <= 0xFF;
+            }
+        }
+        if (chars > Integer.MAX_VALUE) {
+            throw new IOException("Corpus too large for one index file");
+        }
+        Path dir = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+            out.writeInt(MappedTermStore.MAGIC);
+            out.writeInt(MappedTermStore.VERSION);
+            out.writeInt(n);
+            out.writeInt(narrow ? MappedTermStore.LATIN1 : MappedTermStore.UTF16);
+            out.writeLong(chars);
+            for (int i = 0; i < n; i++) {
+                out.writeLong(store.weightAt(i));
+            }
+            int offset = 0;
+            for (int i = 0; i < n; i++) {
+                out.writeInt(offset);
+                offset += store.queryAt(i).length();
+            }
+            out.writeInt(offset);
+            for (int i = 0; i < n; i++) {
+                String q = store.queryAt(i);
+                if (narrow) {
+                    out.writeBytes(q);
+                } else {
+                    out.writeChars(q);
+                }
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compiles the corpus named by args[0] into the index file named by
+     * args[1]. The corpus holds the number of terms on its first line, then
+     * one query and weight per line.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java AutocompleteIndexCompiler <corpus> <index>");
+            return;
+        }
+        long start = System.nanoTime();
+        Term[] terms = CorpusLoader.load(Paths.get(args[0]));
+        compile(PackedTermStore.of(terms), Paths.get(args[1]));
+        System.out.printf("Compiled %d terms in %d ms%n", terms.length,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+}
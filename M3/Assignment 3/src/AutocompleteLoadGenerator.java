@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Closed-loop load generator for AutocompleteServer. A fixed number of
+ * clients each send one /complete request at a time, replaying the prefixes
+ * of a log file in order, until the run time is up. Reports throughput and
+ * p50/p99/p999 latency of the successful requests. Failed requests are
+ * counted separately and kept out of the percentiles, since a fast error
+ * would otherwise pull them down.
+ */
+public class AutocompleteLoadGenerator {
+
+    /**
+     * Runs the load. Arguments: base URL (for example http://localhost:8080),
+     * prefix log with one prefix per line, number of concurrent clients,
+     * run time in seconds, and optionally k.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: java AutocompleteLoadGenerator <url> <prefix-log> <clients> <seconds> [k]");
+            return;
+        }
+        String base = args[0];
+        List<String> prefixes = Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8)
+                .stream().filter(p -> !p.isEmpty()).collect(Collectors.toList());
+        int clients = Integer.parseInt(args[2]);
+        long seconds = Long.parseLong(args[3]);
+        String k = (args.length > 4) ? "&k=" + Integer.parseInt(args[4]) : "";
+        if (prefixes.isEmpty() || clients <= 0 || seconds <= 0) {
+            throw new IllegalArgumentException("Need a non-empty log, clients > 0 and seconds > 0");
+        }
+
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        Thread[] workers = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            final int id = c;
+            workers[c] = new Thread(() -> {
+                long[] mine = new long[1 << 14];
+                int n = 0;
+                while (System.nanoTime() < deadline) {
+                    String prefix = prefixes.get(Math.floorMod(next.getAndIncrement(), prefixes.size()));
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(base + "/complete?prefix="
+                            + URLEncoder.encode(prefix, StandardCharsets.UTF_8) + k)).build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                    } catch (IOException e) {
+                        errors.incrementAndGet();
+                        continue;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    long latency = System.nanoTime() - start;
+                    if (n == mine.length) {
+                        mine = Arrays.copyOf(mine, n * 2);
+                    }
+                    mine[n++] = latency;
+                }
+                latencies[id] = mine;
+                counts[id] = n;
+            });
+            workers[c].start();
+        }
+        long began = System.nanoTime();
+        for (Thread w : workers) {
+            w.join();
+        }
+        double elapsed = (System.nanoTime() - began) / 1e9;
+
+        int total = 0;
+        for (int n : counts) {
+            total += n;
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, pos, counts[c]);
+            pos += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("requests   %d ok, %d errors%n", total, errors.get());
+        System.out.printf("throughput %.1f req/s%n", total / elapsed);
+        System.out.printf("p50        %.3f ms%n", percentile(all, 0.50) / 1e6);
+        System.out.printf("p99        %.3f ms%n", percentile(all, 0.99) / 1e6);
+        System.out.printf("p999       %.3f ms%n", percentile(all, 0.999) / 1e6);
+        System.out.printf("max        %.3f ms%n", (all.length == 0 ? 0 : all[all.length - 1]) / 1e6);
+    }
+
+    /** Returns the value at quantile q of the sorted array, or 0 if it is empty. */
+    private static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int i = (int) Math.ceil(q * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+    }
+
+}
@@ -0,0 +1,240 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Query metrics for an Autocomplete: latency, match-range size, comparisons
+ * per binary search and result size. Each is kept in a log-linear histogram
+ * in the style of HdrHistogram. Buckets double in width with each power of
+ * two and are split into 16 linear sub-buckets, so any recorded value is
+ * reported within about 6%. Recording a value adds to two LongAdders, the
+ * value's bucket and the running sum. A LongAdder spreads concurrent updates
+ * over per-thread cells, so queries on different threads do not contend on
+ * a shared counter. Recording takes no locks and allocates nothing once the
+ * cells exist, so it is cheap enough to leave on under load. Reads add up
+ * the cells and are correspondingly slower. Metrics are read through
+ * snapshot() or over JMX.
+ */
+public class AutocompleteMetrics implements AutocompleteMetricsMXBean {
+
+    /** An immutable copy of the metrics at one moment. */
+    public static final class Snapshot {
+        public final long queries;
+        public final long latencyP50Nanos;
+        public final long latencyP99Nanos;
+        public final long latencyP999Nanos;
+        public final long latencyMaxNanos;
+        public final double meanRangeSize;
+        public final long rangeSizeP99;
+        public final double meanComparisons;
+        public final double meanResultSize;
+
+        Snapshot(Histogram latency, Histogram range, Histogram comparisons, Histogram results) {
+            queries = latency.count();
+            latencyP50Nanos = latency.percentile(0.50);
+            latencyP99Nanos = latency.percentile(0.99);
+            latencyP999Nanos = latency.percentile(0.999);
+            latencyMaxNanos = latency.percentile(1.0);
+            meanRangeSize = range.mean();
+            rangeSizeP99 = range.percentile(0.99);
+            meanComparisons = comparisons.mean();
+            meanResultSize = results.mean();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("queries=%d p50=%.1fus p99=%.1fus p999=%.1fus max=%.1fus "
+                            + "range=%.1f rangeP99=%d comparisons=%.1f results=%.1f",
+                    queries, latencyP50Nanos / 1e3, latencyP99Nanos / 1e3, latencyP999Nanos / 1e3,
+                    latencyMaxNanos / 1e3, meanRangeSize, rangeSizeP99, meanComparisons, meanResultSize);
+        }
+    }
+
+    /**
+     * A lock-free log-linear histogram of non-negative longs. The count is
+     * the sum of the buckets, so it needs no counter of its own. Reads taken
+     * during concurrent recording may be off by the values in flight.
+     */
+    static final class Histogram {
+        private static final int SUB_BITS = 4;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_COUNT;
+
+        private final LongAdder[] counts = new LongAdder[BUCKETS];
+        private final LongAdder sum = new LongAdder();
+
+        Histogram() {
+            for (int b = 0; b < BUCKETS; b++) {
+                counts[b] = new LongAdder();
+            }
+        }
+
+        /** Records one value; negative values are recorded as zero. */
+        void record(long value) {
+            long v = Math.max(0, value);
+            counts[bucketOf(v)].increment();
+            sum.add(v);
+        }
+
+        long count() {
+            long n = 0;
+            for (LongAdder c : counts) {
+                n += c.sum();
+            }
+            return n;
+        }
+
+        double mean() {
+            long n = count();
+            return (n == 0) ? 0 : (double) sum.sum() / n;
+        }
+
+        /** Returns the upper bound of the bucket holding quantile q, or 0 if empty. */
+        long percentile(double q) {
+            long n = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int b = 0; b < BUCKETS; b++) {
+                snapshot[b] = counts[b].sum();
+                n += snapshot[b];
+            }
+            if (n == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(q * n));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += snapshot[b];
+                if (seen >= rank) {
+                    return upperBoundOf(b);
+                }
+            }
+            return upperBoundOf(BUCKETS - 1);
+        }
+
+        void reset() {
+            for (LongAdder c : counts) {
+                c.reset();
+            }
+            sum.reset();
+        }
+
+        /** Values below SUB_COUNT get exact buckets; above, the top SUB_BITS + 1 bits pick the bucket. */
+        private static int bucketOf(long v) {
+            if (v < SUB_COUNT) {
+                return (int) v;
+            }
+            int magnitude = 63 - Long.numberOfLeadingZeros(v);
+            int shift = magnitude - SUB_BITS;
+            int sub = (int) (v >>> shift) - SUB_COUNT;
+            return (shift + 1) * SUB_COUNT + sub;
+        }
+
+        private static long upperBoundOf(int bucket) {
+            if (bucket < SUB_COUNT) {
+                return bucket;
+            }
+            int shift = bucket / SUB_COUNT - 1;
+            long sub = bucket % SUB_COUNT + SUB_COUNT;
+            long upper = ((sub + 1) << shift) - 1;
+            return (upper < 0) ? Long.MAX_VALUE : upper;
+        }
+    }
+
+    private final Histogram latency = new Histogram();
+    private final Histogram rangeSizes = new Histogram();
+    private final Histogram comparisons = new Histogram();
+    private final Histogram resultSizes = new Histogram();
+
+    /**
+     * Records one completed query.
+     */
+    void recordQuery(long latencyNanos, int resultSize) {
+        latency.record(latencyNanos);
+        resultSizes.record(resultSize);
+    }
+
+    /**
+     * Records one binary search for a prefix range.
+     */
+    void recordSearch(int comparisonCount, int rangeSize) {
+        comparisons.record(comparisonCount);
+        rangeSizes.record(rangeSize);
+    }
+
+    /**
+     * Returns a copy of the current metrics.
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(latency, rangeSizes, comparisons, resultSizes);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server under
+     * "Autocomplete:type=Metrics,name=" followed by name, and returns the
+     * object name used. This method throws a JMException if registration
+     * fails, for example because the name is taken.
+     */
+    public ObjectName register(String name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("Autocomplete:type=Metrics,name=" + ObjectName.quote(name));
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+
+    @Override
+    public long getQueryCount() {
+        return latency.count();
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency.percentile(0.50) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency.percentile(0.99) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return latency.percentile(0.999) / 1e3;
+    }
+
+    @Override
+    public double getLatencyMaxMicros() {
+        return latency.percentile(1.0) / 1e3;
+    }
+
+    @Override
+    public double getMeanRangeSize() {
+        return rangeSizes.mean();
+    }
+
+    @Override
+    public long getRangeSizeP99() {
+        return rangeSizes.percentile(0.99);
+    }
+
+    @Override
+    public double getMeanComparisons() {
+        return comparisons.mean();
+    }
+
+    @Override
+    public double getMeanResultSize() {
+        return resultSizes.mean();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        rangeSizes.reset();
+        comparisons.reset();
+        resultSizes.reset();
+    }
+
+}
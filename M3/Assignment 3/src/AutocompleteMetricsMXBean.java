@@ -0,0 +1,37 @@
+/**
+ * JMX view of the metrics an Autocomplete records. Latencies are in
+ * microseconds; sizes are counts of terms.
+ */
+public interface AutocompleteMetricsMXBean {
+
+    /** Returns the number of queries recorded. */
+    long getQueryCount();
+
+    /** Returns the median query latency. */
+    double getLatencyP50Micros();
+
+    /** Returns the 99th percentile query latency. */
+    double getLatencyP99Micros();
+
+    /** Returns the 99.9th percentile query latency. */
+    double getLatencyP999Micros();
+
+    /** Returns the largest query latency. */
+    double getLatencyMaxMicros();
+
+    /** Returns the mean number of terms in a searched match range. */
+    double getMeanRangeSize();
+
+    /** Returns the 99th percentile of match-range size. */
+    long getRangeSizeP99();
+
+    /** Returns the mean number of comparisons per binary search. */
+    double getMeanComparisons();
+
+    /** Returns the mean number of terms returned per query. */
+    double getMeanResultSize();
+
+    /** Clears every metric. */
+    void reset();
+
+}
@@ -0,0 +1,232 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A small HTTP front end for an Autocomplete, built on the JDK's
+ * com.sun.net.httpserver. Each request runs on its own virtual thread when the
+ * JDK provides them, so there is no pool to size; on older JDKs a cached
+ * thread pool is used instead. The index is immutable, so requests share it
+ * without locking.
+ *
+ * Endpoints:
+ *   GET  /complete?prefix=p[&amp;k=n]  the n heaviest matches for p
+ *   POST /batch[?k=n]             one prefix per body line; results grouped per prefix
+ *
+ * k defaults to DEFAULT_K and may be at most MAX_K, so no request can ask
+ * for an unbounded share of the corpus. Responses are plain text, one term
+ * per line in Term.toString format. Batch responses start each group with a
+ * line holding "#" and the prefix.
+ *
+ * The JDK server writes response headers and body separately. Without
+ * TCP_NODELAY, Nagle's algorithm and delayed ACKs add about 40 ms to every
+ * request on a kept-alive connection. main sets sun.net.httpserver.nodelay
+ * for that reason; programs that embed this class should set it themselves
+ * before the first server is created.
+ */
+public class AutocompleteServer {
+
+    /** The number of matches returned when a request has no k. */
+    public static final int DEFAULT_K = 10;
+
+    /** The largest k a request may ask for. */
+    public static final int MAX_K = 1000;
+
+    // the index being served
+    private final Autocomplete auto;
+
+    // the underlying HTTP server
+    private final HttpServer server;
+
+    // runs request handlers
+    private final ExecutorService executor;
+
+    /**
+     * Creates a server for the given index on the given local port. Port 0
+     * picks a free port. This method throws a NullPointerException if auto is
+     * null and an IOException if the port cannot be bound.
+     */
+    public AutocompleteServer(Autocomplete auto, int port) throws IOException {
+        if (auto == null) {
+            throw new NullPointerException();
+        }
+        this.auto = auto;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.executor = newPerRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/complete", this::complete);
+        server.createContext("/batch", this::batch);
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to the given number of seconds for
+     * in-flight requests to finish.
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    /**
+     * Returns the port this server is bound to.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns an executor that runs each task on a new virtual thread, or a
+     * cached thread pool when virtual threads are unavailable (before JDK 21,
+     * or on JDK 19 and 20 without --enable-preview). The lookup is reflective
+     * so this class still compiles on older JDKs.
+     */
+    static ExecutorService newPerRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Serves an autocomplete index. args[0] is either a compiled
+     * index (ending in .idx) or a text corpus; args[1] is the port.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java AutocompleteServer <corpus|index.idx> <port>");
+            return;
+        }
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        Path file = Paths.get(args[0]);
+        Autocomplete auto = file.toString().endsWith(".idx")
+                ? new Autocomplete(file)
+                : new Autocomplete(PackedTermStore.of(CorpusLoader.load(file)));
+        AutocompleteServer server = new AutocompleteServer(auto, Integer.parseInt(args[1]));
+        server.start();
+        System.out.println("Serving on http://localhost:" + server.port() + "/complete?prefix=");
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /** Handles GET /complete. */
+    private void complete(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "GET only\n");
+                return;
+            }
+            Map<String, String> params = query(exchange);
+            String prefix = params.get("prefix");
+            if (prefix == null) {
+                send(exchange, 400, "Missing prefix\n");
+                return;
+            }
+            StringBuilder body = new StringBuilder();
+            append(body, auto.topMatches(prefix, limit(params)));
+            send(exchange, 200, body.toString());
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, e.getMessage() + "\n");
+        }
+    }
+
+    /** Handles POST /batch. */
+    private void batch(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "POST only\n");
+                return;
+            }
+            int k = limit(query(exchange));
+            StringBuilder body = new StringBuilder();
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8));
+            String prefix;
+            while ((prefix = in.readLine()) != null) {
+                body.append('#').append(prefix).append('\n');
+                append(body, auto.topMatches(prefix, k));
+            }
+            send(exchange, 200, body.toString());
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, e.getMessage() + "\n");
+        }
+    }
+
+    /** Returns the k parameter, or DEFAULT_K when it is absent. */
+    private static int limit(Map<String, String> params) {
+        String k = params.get("k");
+        if (k == null) {
+            return DEFAULT_K;
+        }
+        try {
+            int n = Integer.parseInt(k);
+            if (n <= 0 || n > MAX_K) {
+                throw new NumberFormatException();
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("k must be an integer from 1 to " + MAX_K);
+        }
+    }
+
+    /** Appends one line per term. */
+    private static void append(StringBuilder body, Term[] terms) {
+        for (Term t : terms) {
+            body.append(t).append('\n');
+        }
+    }
+
+    /** Decodes the request's query string. */
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = (eq < 0) ? pair : pair.substring(0, eq);
+            String value = (eq < 0) ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+                    URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    /** Sends a plain-text response and closes the exchange. */
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+}
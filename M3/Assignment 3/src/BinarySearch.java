@@ -1,5 +1,6 @@
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Binary search.
@@ -20,9 +21,10 @@ public class BinarySearch {
         int result = -1;
         while (left <= right) {
             int mid = left + (right - left) / 2;
-            if (comparator.compare(a[mid], key) > 0) {
+            int cmp = comparator.compare(a[mid], key);
+            if (cmp > 0) {
                 right = mid - 1;
-            } else if (comparator.compare(a[mid], key) < 0) {
+            } else if (cmp < 0) {
                 left = mid + 1;
             } else {
                 result = mid;
@@ -46,9 +48,10 @@ public class BinarySearch {
         int result = -1;
         while (left <= right) {
             int mid = left + (right - left) / 2;
-            if (comparator.compare(a[mid], key) > 0) {
+            int cmp = comparator.compare(a[mid], key);
+            if (cmp > 0) {
                 right = mid - 1;
-            } else if (comparator.compare(a[mid], key) < 0) {
+            } else if (cmp < 0) {
                 left = mid + 1;
             } else {
                 result = mid;
@@ -57,4 +60,182 @@ public class BinarySearch {
         }
         return result;
     }
+
+    /**
+     * Returns {first, last}, the indexes of the first and last keys in a[]
+     * that equal the search key, or {-1, -1} if no such key exists. Both
+     * bounds come from one shared descent that splits only at the first equal
+     * element it finds. This method throws a NullPointerException if any
+     * parameter is null.
+     */
+    public static <Key> int[] equalRange(Key[] a, Key key, Comparator<Key> comparator) {
+        if (a == null || key == null || comparator == null) {
+            throw new NullPointerException();
+        }
+        return equalRange(0, a.length, i -> comparator.compare(a[i], key));
+    }
+
+    /**
+     * Returns the same result as equalRange(a, key, comparator), but searches
+     * forward from hint with exponentially growing steps. Every key before
+     * hint must be less than the search key. Resolving a sorted batch of keys
+     * with each search hinted by the previous match costs one forward sweep
+     * over a[]. This method throws a NullPointerException if any parameter
+     * is null.
+     */
+    public static <Key> int[] equalRange(Key[] a, Key key, Comparator<Key> comparator, int hint) {
+        if (a == null || key == null || comparator == null) {
+            throw new NullPointerException();
+        }
+        return gallop(hint, a.length, i -> comparator.compare(a[i], key));
+    }
+
+    /**
+     * Returns {first, last} for the search key in the sorted array a[], or
+     * {-1, -1} if it is absent. This method throws a NullPointerException if
+     * a is null.
+     */
+    public static int[] equalRange(int[] a, int key) {
+        if (a == null) {
+            throw new NullPointerException();
+        }
+        return equalRange(0, a.length, i -> Integer.compare(a[i], key));
+    }
+
+    /**
+     * Galloping form of equalRange(a, key) that searches forward from hint.
+     * Every element before hint must be less than key. This method throws a
+     * NullPointerException if a is null.
+     */
+    public static int[] equalRange(int[] a, int key, int hint) {
+        if (a == null) {
+            throw new NullPointerException();
+        }
+        return gallop(hint, a.length, i -> Integer.compare(a[i], key));
+    }
+
+    /**
+     * Returns {first, last} for the search key in the sorted array a[], or
+     * {-1, -1} if it is absent. This method throws a NullPointerException if
+     * a is null.
+     */
+    public static int[] equalRange(long[] a, long key) {
+        if (a == null) {
+            throw new NullPointerException();
+        }
+        return equalRange(0, a.length, i -> Long.compare(a[i], key));
+    }
+
+    /**
+     * Galloping form of equalRange(a, key) that searches forward from hint.
+     * Every element before hint must be less than key. This method throws a
+     * NullPointerException if a is null.
+     */
+    public static int[] equalRange(long[] a, long key, int hint) {
+        if (a == null) {
+            throw new NullPointerException();
+        }
+        return gallop(hint, a.length, i -> Long.compare(a[i], key));
+    }
+
+    /**
+     * Returns {first, last} for the indexes in [fromIndex, toIndex) whose
+     * probe result is zero, or {-1, -1} if there are none. probe(i) must
+     * return the comparison of element i with the search key, and the
+     * results must be non-decreasing over the range. This lets callers search
+     * storage that is not an array of keys. This method throws a
+     * NullPointerException if probe is null.
+     */
+    public static int[] equalRange(int fromIndex, int toIndex, IntUnaryOperator probe) {
+        if (probe == null) {
+            throw new NullPointerException();
+        }
+        int left = fromIndex;
+        int right = toIndex - 1;
+        while (left <= right) {
+            int mid = left + (right - left) / 2;
+            int cmp = probe.applyAsInt(mid);
+            if (cmp > 0) {
+                right = mid - 1;
+            } else if (cmp < 0) {
+                left = mid + 1;
+            } else {
+                // split: the first equal key is in [left, mid], the last in [mid, right]
+                int first = lowerBound(left, mid, probe);
+                int last = upperBound(mid + 1, right + 1, probe) - 1;
+                return new int[] {first, last};
+            }
+        }
+        return new int[] {-1, -1};
+    }
+
+    /**
+     * Galloping form of equalRange(fromIndex, toIndex, probe). The search
+     * starts at hint and every index before hint must probe less than zero.
+     * This method throws a NullPointerException if probe is null.
+     */
+    public static int[] gallop(int hint, int toIndex, IntUnaryOperator probe) {
+        if (probe == null) {
+            throw new NullPointerException();
+        }
+        int first = gallopLowerBound(Math.max(hint, 0), toIndex, probe);
+        if (first == toIndex || probe.applyAsInt(first) != 0) {
+            return new int[] {-1, -1};
+        }
+        // bound < toIndex - first keeps first + bound in range without overflow
+        int bound = 1;
+        int prev = first;
+        while (bound < toIndex - first && probe.applyAsInt(first + bound) == 0) {
+            prev = first + bound;
+            bound = (bound <= (toIndex - first) / 2) ? bound * 2 : toIndex - first;
+        }
+        int last = upperBound(prev + 1, first + Math.min(bound, toIndex - first), probe) - 1;
+        return new int[] {first, last};
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /** Returns the first index in [from, to) whose probe is not negative, or to. */
+    private static int lowerBound(int from, int to, IntUnaryOperator probe) {
+        while (from < to) {
+            int mid = from + (to - from) / 2;
+            if (probe.applyAsInt(mid) < 0) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /** Returns the first index in [from, to) whose probe is positive, or to. */
+    private static int upperBound(int from, int to, IntUnaryOperator probe) {
+        while (from < to) {
+            int mid = from + (to - from) / 2;
+            if (probe.applyAsInt(mid) <= 0) {
+                from = mid + 1;
+            } else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /** Returns lowerBound(hint, to, probe), found by doubling steps forward from hint. */
+    private static int gallopLowerBound(int hint, int to, IntUnaryOperator probe) {
+        if (hint >= to || probe.applyAsInt(hint) >= 0) {
+            return Math.min(hint, to);
+        }
+        int bound = 1;
+        int prev = hint;
+        while (bound < to - hint && probe.applyAsInt(hint + bound) < 0) {
+            prev = hint + bound;
+            bound = (bound <= (to - hint) / 2) ? bound * 2 : to - hint;
+        }
+        return lowerBound(prev + 1, hint + Math.min(bound, to - hint), probe);
+    }
+
 }
@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Loads a text corpus into a Term[] in parallel. The corpus holds the number
+ * of terms on its first line, then one query and weight per line, separated
+ * by whitespace; anything after the weight is ignored. The file is split into
+ * byte ranges that end on newline boundaries, and each range is parsed on a
+ * fork-join pool.
+ */
+public class CorpusLoader {
+
+    // ranges are never larger than this, so each one can be mapped on its own
+    private static final long MAX_CHUNK_BYTES = 64L << 20;
+
+    // ranges are never smaller than this, so small files are parsed in one piece
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+
+    /**
+     * Loads the given corpus file on the common fork-join pool. This method
+     * throws a NullPointerException if file is null and an IOException if the
+     * file cannot be read or is malformed.
+     */
+    public static Term[] load(Path file) throws IOException {
+        return load(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Loads the given corpus file on the given pool. This method throws a
+     * NullPointerException if any parameter is null and an IOException if the
+     * file cannot be read or is malformed.
+     */
+    public static Term[] load(Path file, ForkJoinPool pool) throws IOException {
+        if (file == null || pool == null) {
+            throw new NullPointerException();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long headerEnd = nextLineStart(channel, 0, length);
+            int expected = parseCount(channel, headerEnd);
+
+            long target = length / Math.max(1, 4 * pool.getParallelism());
+            long chunk = Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, target));
+            List<ParseTask> tasks = new ArrayList<>();
+            long start = headerEnd;
+            while (start < length) {
+                long end = nextLineStart(channel, Math.min(start + chunk, length), length);
+                tasks.add(new ParseTask(channel, start, end));
+                start = end;
+            }
+            List<Term[]> parts = new ArrayList<>();
+            try {
+                List<Future<Term[]>> futures = new ArrayList<>();
+                for (ParseTask task : tasks) {
+                    futures.add(pool.submit(task));
+                }
+                for (Future<Term[]> part : futures) {
+                    parts.add(part.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while loading " + file);
+            } catch (ExecutionException | RuntimeException e) {
+                // the pool may rewrap a task's exception, so look down the cause chain
+                for (Throwable t = e.getCause(); t != null; t = t.getCause()) {
+                    if (t instanceof IOException) {
+                        throw (IOException) t;
+                    }
+                }
+                if (e instanceof RuntimeException) {
+                    throw (RuntimeException) e;
+                }
+                throw new IOException(e.getCause());
+            }
+
+            Term[] terms = new Term[expected];
+            int n = 0;
+            for (Term[] part : parts) {
+                int take = Math.min(part.length, expected - n);
+                System.arraycopy(part, 0, terms, n, take);
+                n += take;
+            }
+            if (n < expected) {
+                throw new IOException("Expected " + expected + " terms but found " + n);
+            }
+            return terms;
+        }
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /** Returns the position just past the first newline at or after from, or length. */
+    private static long nextLineStart(FileChannel channel, long from, long length) throws IOException {
+        if (from >= length) {
+            return length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        long pos = from;
+        while (pos < length) {
+            buf.clear();
+            int read = channel.read(buf, pos);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buf.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return length;
+    }
+
+    /** Parses the term count from the header line, which ends before headerEnd. */
+    private static int parseCount(FileChannel channel, long headerEnd) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate((int) Math.min(headerEnd, 256));
+        channel.read(buf, 0);
+        String header = new String(buf.array(), 0, buf.position(), StandardCharsets.UTF_8).strip();
+        try {
+            int count = Integer.parseInt(header);
+            if (count < 0) {
+                throw new NumberFormatException();
+            }
+            return count;
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed corpus header: " + header);
+        }
+    }
+
+    /** Returns true if b is an ASCII whitespace byte. */
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n' || b == '\f';
+    }
+
+
+    ////////////////////
+    // Nested classes //
+    ////////////////////
+
+    /**
+     * Parses the lines in one byte range of the corpus.
+     */
+    private static class ParseTask implements Callable<Term[]> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        ParseTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Term[] call() throws IOException {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            Term[] out = new Term[1024];
+            int n = 0;
+            int limit = buf.limit();
+            int pos = 0;
+            while (pos < limit) {
+                while (pos < limit && isSpace(buf.get(pos))) {
+                    pos++;
+                }
+                if (pos >= limit) {
+                    break;
+                }
+                int queryStart = pos;
+                while (pos < limit && !isSpace(buf.get(pos))) {
+                    pos++;
+                }
+                byte[] bytes = new byte[pos - queryStart];
+                buf.get(queryStart, bytes);
+                String query = new String(bytes, StandardCharsets.UTF_8);
+                while (pos < limit && (buf.get(pos) == ' ' || buf.get(pos) == '\t')) {
+                    pos++;
+                }
+                long weight = 0;
+                int digits = 0;
+                while (pos < limit && buf.get(pos) >= '0' && buf.get(pos) <= '9') {
+                    weight = weight * 10 + (buf.get(pos) - '0');
+                    pos++;
+                    digits++;
+                }
+                if (digits == 0) {
+                    throw new IOException("Missing weight for \"" + query + "\" near byte " + (start + pos));
+                }
+                while (pos < limit && buf.get(pos) != '\n') {
+                    pos++;
+                }
+                if (n == out.length) {
+                    out = Arrays.copyOf(out, n * 2);
+                }
+                out[n++] = new Term(query, weight);
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A TermStore that matches case- and accent-insensitively.
+ *
+ * Each query gets a folded search key at build time. The key is the query's
+ * NFKD decomposition with combining marks removed, lowercased, so "Caf\u00e9"
+ * (with an accented e) becomes "cafe". Terms are sorted and searched on
+ * these keys, and the prefix is folded once per query. The binary search
+ * therefore still compares plain characters and never folds inside its
+ * loop. Results carry the original display query.
+ */
+public class FoldedTermStore implements TermStore {
+
+    // combining marks left behind by decomposition
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // the folded keys and weights, in ascending order of key
+    private final PackedTermStore keys;
+
+    // the original query of the term at index i
+    private final String[] display;
+
+    /** Wraps already-sorted keys and their display queries. */
+    private FoldedTermStore(PackedTermStore keys, String[] display) {
+        this.keys = keys;
+        this.display = display;
+    }
+
+    /**
+     * Returns a folded store of the given terms. The array itself is not
+     * modified. This method throws a NullPointerException if terms or any
+     * element is null.
+     */
+    public static FoldedTermStore of(Term[] terms) {
+        if (terms == null) {
+            throw new NullPointerException();
+        }
+        int n = terms.length;
+        String[] folded = new String[n];
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            folded[i] = fold(terms[i].getQuery());
+            order[i] = i;
+        }
+        Arrays.parallelSort(order, Comparator.<Integer, String>comparing(i -> folded[i])
+                .thenComparing(i -> terms[i].getQuery()));
+        Term[] keyed = new Term[n];
+        String[] display = new String[n];
+        for (int r = 0; r < n; r++) {
+            int i = order[r];
+            keyed[r] = new Term(folded[i], terms[i].getWeight());
+            display[r] = terms[i].getQuery();
+        }
+        return new FoldedTermStore(PackedTermStore.of(keyed), display);
+    }
+
+    /**
+     * Returns the search key for s: its NFKD decomposition with combining
+     * marks removed, lowercased in the root locale.
+     */
+    public static String fold(String s) {
+        String decomposed = Normalizer.normalize(s, Normalizer.Form.NFKD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public int size() {
+        return display.length;
+    }
+
+    @Override
+    public String queryAt(int i) {
+        return display[i];
+    }
+
+    @Override
+    public long weightAt(int i) {
+        return keys.weightAt(i);
+    }
+
+    @Override
+    public int comparePrefix(int i, String prefix) {
+        return keys.comparePrefix(i, prefix);
+    }
+
+    @Override
+    public int[] prefixRange(String prefix, int from, int to, int[] comparisons) {
+        return keys.prefixRange(prefix, from, to, comparisons);
+    }
+
+    @Override
+    public int[] prefixRangeFrom(String prefix, int hint, int to, int[] comparisons) {
+        return keys.prefixRangeFrom(prefix, hint, to, comparisons);
+    }
+
+    @Override
+    public long[] weights() {
+        return keys.weights();
+    }
+
+    @Override
+    public String normalize(String prefix) {
+        return fold(prefix);
+    }
+
+}
@@ -0,0 +1,378 @@
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * A TermStore that front-codes the sorted queries in fixed-size blocks.
+ *
+ * The first query of each block is stored in full. Every other query stores
+ * only the length of the prefix it shares with the query before it, plus the
+ * rest of its characters. Sorted queries share long prefixes, so this usually
+ * shrinks the character data by well over half. Lengths are written as
+ * variable-length integers. Characters take one byte each when the whole
+ * corpus fits in Latin-1, and two bytes otherwise.
+ *
+ * A lookup by index finds its block and decodes forward from the block's
+ * first query. A prefix search works in two levels: it binary-searches the
+ * block heads, which are stored uncompressed and compared in place, and then
+ * decodes only the block where each bound falls. A search therefore costs
+ * O(log(n / blockSize)) head comparisons plus at most two block scans, not
+ * a block decode per probe. The galloping search used by batch lookups
+ * doubles its way across block heads from the hint before doing the same.
+ * Decoding uses a per-thread scratch buffer, which
+ * keeps searches allocation-free after the first call on each thread.
+ */
+public class FrontCodedTermStore implements TermStore {
+
+    /** The default number of queries per block. */
+    public static final int DEFAULT_BLOCK_SIZE = 32;
+
+    // the encoded blocks, back to back
+    private final byte[] data;
+
+    // blockStarts[b] is the position in data of block b
+    private final int[] blockStarts;
+
+    // the weight of the term at index i
+    private final long[] weights;
+
+    // the number of queries per block
+    private final int blockSize;
+
+    // true if characters take two bytes
+    private final boolean wide;
+
+    // per-thread buffer that decoded queries are rebuilt in
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /** A growable character buffer owned by one thread. */
+    private static final class Scratch {
+        private char[] chars = new char[64];
+        private int length;
+        private int cmp;
+    }
+
+    /** Wraps already-encoded data. */
+    private FrontCodedTermStore(byte[] data, int[] blockStarts, long[] weights, int blockSize, boolean wide) {
+        this.data = data;
+        this.blockStarts = blockStarts;
+        this.weights = weights;
+        this.blockSize = blockSize;
+        this.wide = wide;
+    }
+
+    /**
+     * Returns a front-coded store of the given terms with the default block
+     * size. The array itself is not modified. This method throws a
+     * NullPointerException if terms or any element is null.
+     */
+    public static FrontCodedTermStore of(Term[] terms) {
+        return of(terms, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Returns a front-coded store of the given terms with blockSize queries
+     * per block. Larger blocks compress better and search more slowly. The
+     * array itself is not modified. This method throws a NullPointerException
+     * if terms or any element is null, and an IllegalArgumentException if
+     * blockSize is less than 2.
+     */
+    public static FrontCodedTermStore of(Term[] terms, int blockSize) {
+        if (terms == null) {
+            throw new NullPointerException();
+        }
+        if (blockSize < 2) {
+            throw new IllegalArgumentException("Block size must be at least 2");
+        }
+        Term[] sorted = terms.clone();
+        Autocomplete.sort(sorted);
+        int n = sorted.length;
+        boolean wide = false;
+        for (int i = 0; i < n && !wide; i++) {
+            String q = sorted[i].getQuery();
+            for (int c = 0; c < q.length() && !wide; c++) {
+                wide = q.charAt(c) > 0xFF;
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int[] blockStarts = new int[(n + blockSize - 1) / blockSize];
+        long[] weights = new long[n];
+        String previous = "";
+        for (int i = 0; i < n; i++) {
+            String q = sorted[i].getQuery();
+            weights[i] = sorted[i].getWeight();
+            int shared = 0;
+            if (i % blockSize == 0) {
+                blockStarts[i / blockSize] = out.size();
+            } else {
+                int limit = Math.min(previous.length(), q.length());
+                while (shared < limit && previous.charAt(shared) == q.charAt(shared)) {
+                    shared++;
+                }
+                writeVarInt(out, shared);
+            }
+            writeVarInt(out, q.length() - shared);
+            for (int c = shared; c < q.length(); c++) {
+                if (wide) {
+                    out.write(q.charAt(c) >>> 8);
+                }
+                out.write(q.charAt(c));
+            }
+            previous = q;
+        }
+        return new FrontCodedTermStore(out.toByteArray(), blockStarts, weights, blockSize, wide);
+    }
+
+    /**
+     * Returns the number of bytes used to encode the queries.
+     */
+    public int encodedBytes() {
+        return data.length;
+    }
+
+    @Override
+    public int size() {
+        return weights.length;
+    }
+
+    @Override
+    public String queryAt(int i) {
+        Scratch buf = scratch.get();
+        decode(i, buf);
+        return new String(buf.chars, 0, buf.length);
+    }
+
+    @Override
+    public long weightAt(int i) {
+        return weights[i];
+    }
+
+    @Override
+    public int comparePrefix(int i, String prefix) {
+        Scratch buf = scratch.get();
+        decode(i, buf);
+        return compare(buf, prefix);
+    }
+
+    @Override
+    public int[] prefixRange(String prefix, int from, int to, int[] comparisons) {
+        if (from > to) {
+            return new int[] {-1, -1};
+        }
+        Scratch buf = scratch.get();
+        int first = bound(prefix, from, to, false, buf, comparisons);
+        if (first > to || buf.cmp != 0) {
+            return new int[] {-1, -1};
+        }
+        int last = bound(prefix, first, to, true, buf, comparisons) - 1;
+        return new int[] {first, last};
+    }
+
+    @Override
+    public int[] prefixRangeFrom(String prefix, int hint, int to, int[] comparisons) {
+        int from = Math.max(hint, 0);
+        if (from > to) {
+            return new int[] {-1, -1};
+        }
+        Scratch buf = scratch.get();
+        int first = bound(prefix, from, gallopHeads(prefix, from, to, false, comparisons), false, buf, comparisons);
+        if (first > to || buf.cmp != 0) {
+            return new int[] {-1, -1};
+        }
+        int last = bound(prefix, first, gallopHeads(prefix, first, to, true, comparisons), true, buf, comparisons) - 1;
+        return new int[] {first, last};
+    }
+
+    @Override
+    public long[] weights() {
+        return weights;
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Returns the first index in from..to whose query compares greater than
+     * prefix (when upper) or not less than prefix (otherwise), or to + 1 if
+     * there is none. That query's comparison with prefix is left in buf.cmp.
+     * The block heads are binary-searched in place, and only the one block
+     * where the bound falls is decoded.
+     */
+    private int bound(String prefix, int from, int to, boolean upper, Scratch buf, int[] comparisons) {
+        // find the last block whose head lies before the bound; blocks after
+        // from's own block start past from, and to's block starts at or before to
+        int block = from / blockSize;
+        int lo = block + 1;
+        int hi = to / blockSize;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareHead(mid, prefix);
+            if (comparisons != null) {
+                comparisons[0]++;
+            }
+            if (cmp < 0 || (upper && cmp == 0)) {
+                block = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        int head = block * blockSize;
+        int end = Math.min(to, head + blockSize - 1);
+        int p = blockStarts[block];
+        for (int j = head; j <= end; j++) {
+            p = step(p, j == head, buf);
+            if (j >= from) {
+                int cmp = compare(buf, prefix);
+                if (comparisons != null) {
+                    comparisons[0]++;
+                }
+                if (cmp > 0 || (!upper && cmp == 0)) {
+                    buf.cmp = cmp;
+                    return j;
+                }
+            }
+        }
+        // the head search already placed the next block's head at or past the bound
+        int next = end + 1;
+        if (next <= to) {
+            buf.cmp = compareHead(next / blockSize, prefix);
+        }
+        return next;
+    }
+
+    /**
+     * Returns an index in from..to at or past the bound that bound() would
+     * find, or to if there is none closer. Block heads after from's block are
+     * compared at doubling distances, so the returned window, and the binary
+     * search over it, grow with the distance to the bound.
+     */
+    private int gallopHeads(String prefix, int from, int to, boolean upper, int[] comparisons) {
+        int base = from / blockSize;
+        int lastBlock = to / blockSize;
+        for (int step = 1; step <= lastBlock - base; step *= 2) {
+            int cmp = compareHead(base + step, prefix);
+            if (comparisons != null) {
+                comparisons[0]++;
+            }
+            if (cmp > 0 || (!upper && cmp == 0)) {
+                return (base + step) * blockSize;
+            }
+            if (step > (lastBlock - base) / 2) {
+                break;
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Compares the first prefix.length() characters of the head of block b
+     * with prefix, reading the uncompressed head in place.
+     */
+    private int compareHead(int b, String prefix) {
+        int p = blockStarts[b];
+        int len = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte x = data[p++];
+            len |= (x & 0x7F) << shift;
+            if (x >= 0) {
+                break;
+            }
+        }
+        int lim = Math.min(len, prefix.length());
+        for (int c = 0; c < lim; c++) {
+            char ch;
+            if (wide) {
+                ch = (char) (((data[p] & 0xFF) << 8) | (data[p + 1] & 0xFF));
+                p += 2;
+            } else {
+                ch = (char) (data[p++] & 0xFF);
+            }
+            int diff = ch - prefix.charAt(c);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return lim - prefix.length();
+    }
+
+    /**
+     * Compares the first prefix.length() characters of the query in the
+     * scratch buffer with prefix.
+     */
+    private static int compare(Scratch buf, String prefix) {
+        char[] chars = buf.chars;
+        int lim = Math.min(buf.length, prefix.length());
+        for (int c = 0; c < lim; c++) {
+            int diff = chars[c] - prefix.charAt(c);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return lim - prefix.length();
+    }
+
+    /**
+     * Rebuilds query i in the scratch buffer. Decoding starts from the head
+     * of i's block.
+     */
+    private void decode(int i, Scratch buf) {
+        int head = (i / blockSize) * blockSize;
+        int p = blockStarts[i / blockSize];
+        for (int j = head; j <= i; j++) {
+            p = step(p, j == head, buf);
+        }
+    }
+
+    /**
+     * Decodes the entry at position p over the previous query in the scratch
+     * buffer, growing it if needed, and returns the position of the next
+     * entry. A block head has no shared-prefix length.
+     */
+    private int step(int p, boolean head, Scratch buf) {
+        int shared = 0;
+        if (!head) {
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[p++];
+                shared |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+        }
+        int rest = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data[p++];
+            rest |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        int len = shared + rest;
+        if (len > buf.chars.length) {
+            buf.chars = Arrays.copyOf(buf.chars, Math.max(len, 2 * buf.chars.length));
+        }
+        char[] chars = buf.chars;
+        for (int c = shared; c < len; c++) {
+            if (wide) {
+                chars[c] = (char) (((data[p] & 0xFF) << 8) | (data[p + 1] & 0xFF));
+                p += 2;
+            } else {
+                chars[c] = (char) (data[p++] & 0xFF);
+            }
+        }
+        buf.length = len;
+        return p;
+    }
+
+    /** Writes value as a variable-length integer, seven bits per byte. */
+    private static void writeVarInt(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+}
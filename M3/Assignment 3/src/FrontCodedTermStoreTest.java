@@ -0,0 +1,101 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FrontCodedTermStoreTest {
+
+    private static final int[] BLOCK_SIZES = {2, 3, 7, FrontCodedTermStore.DEFAULT_BLOCK_SIZE, 100};
+
+    @Test
+    public void latin1MatchesArrayStore() {
+        checkAgainstArrayStore("abc", new Random(13));
+    }
+
+    @Test
+    public void wideMatchesArrayStore() {
+        // one character above U+00FF switches the store to two bytes per character
+        checkAgainstArrayStore("ab\u00e9\u4e2d", new Random(14));
+    }
+
+    @Test
+    public void emptyStore() {
+        TermStore store = FrontCodedTermStore.of(new Term[0]);
+        assertEquals(0, store.size());
+        assertArrayEquals(new int[] {-1, -1}, store.prefixRange("a", 0, -1, null));
+        assertArrayEquals(new int[] {-1, -1}, store.prefixRangeFrom("a", 0, -1, null));
+    }
+
+    @Test
+    public void rejectsBadArguments() {
+        try {
+            FrontCodedTermStore.of(new Term[0], 1);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            FrontCodedTermStore.of(null);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Builds random corpora over the given alphabet and checks every
+     * accessor and range search of the front-coded store, at several block
+     * sizes, against the plain array store Autocomplete uses for a Term[].
+     */
+    private static void checkAgainstArrayStore(String alphabet, Random random) {
+        for (int trial = 0; trial < 20; trial++) {
+            Term[] terms = new Term[random.nextInt(400)];
+            for (int i = 0; i < terms.length; i++) {
+                terms[i] = new Term(randomString(alphabet, 6, random), random.nextInt(1000));
+            }
+            TermStore expected = new Autocomplete(terms.clone()).store();
+            for (int blockSize : BLOCK_SIZES) {
+                TermStore store = FrontCodedTermStore.of(terms, blockSize);
+                int n = expected.size();
+                assertEquals(n, store.size());
+                for (int i = 0; i < n; i++) {
+                    assertEquals(expected.queryAt(i), store.queryAt(i));
+                    assertEquals(expected.weightAt(i), store.weightAt(i));
+                }
+                assertArrayEquals(expected.weights(), store.weights());
+                for (int q = 0; q < 100; q++) {
+                    String prefix = randomString(alphabet, 3, random);
+                    int from = (n == 0) ? 0 : random.nextInt(n);
+                    int to = from - 1 + random.nextInt(n - from + 1);
+                    String where = "block " + blockSize + ", prefix " + prefix + ", " + from + ".." + to;
+                    assertArrayEquals(where, expected.prefixRange(prefix, from, to, null),
+                            store.prefixRange(prefix, from, to, null));
+                    // a galloping search needs every query before its hint to sort below prefix
+                    int hint = from;
+                    while (hint > 0 && expected.comparePrefix(hint - 1, prefix) >= 0) {
+                        hint--;
+                    }
+                    assertArrayEquals(where, expected.prefixRangeFrom(prefix, hint, to, null),
+                            store.prefixRangeFrom(prefix, hint, to, null));
+                    if (n > 0) {
+                        int i = random.nextInt(n);
+                        assertEquals(Integer.signum(expected.comparePrefix(i, prefix)),
+                                Integer.signum(store.comparePrefix(i, prefix)));
+                    }
+                }
+            }
+        }
+    }
+
+    /** Returns a string of up to maxLength characters from alphabet. */
+    private static String randomString(String alphabet, int maxLength, Random random) {
+        StringBuilder s = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            s.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return s.toString();
+    }
+
+}
@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An Autocomplete whose weights can change while it is being queried.
+ *
+ * Inserts and weight updates go into a small sorted delta that sits on top of
+ * an immutable base index. Queries merge results from the two, with delta
+ * entries overriding base terms of the same query. Once the delta grows past
+ * a threshold, a background thread merges it into a new base and publishes
+ * the result. Base and delta are always published together as one immutable
+ * snapshot through an atomic reference, so readers never lock and always see
+ * a consistent pair. Writers are serialized with each other.
+ */
+public class LiveAutocomplete implements AutoCloseable {
+
+    /** An immutable base index with the updates made since it was built. */
+    private static final class Snapshot {
+        final Autocomplete base;
+        final NavigableMap<String, Long> delta;
+
+        Snapshot(Autocomplete base, NavigableMap<String, Long> delta) {
+            this.base = base;
+            this.delta = delta;
+        }
+    }
+
+    // the current snapshot; replaced wholesale, never modified
+    private final AtomicReference<Snapshot> current;
+
+    // the delta size at which a background compaction starts
+    private final int compactionThreshold;
+
+    // runs compactions one at a time
+    private final ExecutorService compactor;
+
+    // the pending compaction, or null; guarded by this
+    private CompletableFuture<Void> pending;
+
+    /**
+     * Creates a live index over the given terms that compacts once the delta
+     * holds compactionThreshold entries. If a query appears more than once,
+     * the last occurrence wins, as if each had been put in turn. The array
+     * itself is not modified. This method throws a
+     * NullPointerException if terms is null and an IllegalArgumentException
+     * if compactionThreshold is less than or equal to zero.
+     */
+    public LiveAutocomplete(Term[] terms, int compactionThreshold) {
+        if (terms == null) {
+            throw new NullPointerException();
+        }
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Compaction threshold must be positive");
+        }
+        this.current = new AtomicReference<>(new Snapshot(
+                newBase(distinct(terms)),
+                Collections.unmodifiableNavigableMap(new TreeMap<>())));
+        this.compactionThreshold = compactionThreshold;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "autocomplete-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Sets the weight of query, inserting it if it is new. The change is
+     * visible to queries that start after this method returns. This method
+     * throws a NullPointerException if query is null and an
+     * IllegalArgumentException if weight is negative.
+     */
+    public synchronized void put(String query, long weight) {
+        if (query == null) {
+            throw new NullPointerException();
+        }
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weight must be a positive integer");
+        }
+        Snapshot s = current.get();
+        TreeMap<String, Long> delta = new TreeMap<>(s.delta);
+        delta.put(query, weight);
+        current.set(new Snapshot(s.base, Collections.unmodifiableNavigableMap(delta)));
+        if (delta.size() >= compactionThreshold && pending == null) {
+            pending = CompletableFuture.runAsync(this::compact, compactor);
+        }
+    }
+
+    /**
+     * Returns the number of updates not yet merged into the base index.
+     */
+    public int pendingUpdates() {
+        return current.get().delta.size();
+    }
+
+    /**
+     * Starts a compaction on the background thread, unless one is already
+     * running, and returns a future that completes when it has been published.
+     */
+    public synchronized CompletableFuture<Void> compactAsync() {
+        if (pending == null) {
+            pending = CompletableFuture.runAsync(this::compact, compactor);
+        }
+        return pending;
+    }
+
+    /**
+     * Returns the k heaviest terms that start with the given prefix, in
+     * descending order of weight. This method throws a NullPointerException if
+     * prefix is null and an IllegalArgumentException if k is less than or
+     * equal to zero.
+     */
+    public Term[] topMatches(String prefix, int k) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        return merge(current.get(), prefix, k);
+    }
+
+    /**
+     * Returns all terms that start with the given prefix, in descending order
+     * of weight. This method throws a NullPointerException if prefix is null.
+     */
+    public Term[] allMatches(String prefix) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        return merge(current.get(), prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Stops the background compaction thread. A compaction in progress is
+     * abandoned and the current snapshot stays in use.
+     */
+    @Override
+    public void close() {
+        compactor.shutdownNow();
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Merges the base matches, minus those overridden by the delta, with the
+     * delta matches, stopping after k results.
+     */
+    private static Term[] merge(Snapshot s, String prefix, int k) {
+        List<Term> fresh = new ArrayList<>();
+        for (Map.Entry<String, Long> e : s.delta.tailMap(prefix, true).entrySet()) {
+            if (!e.getKey().startsWith(prefix)) {
+                break;
+            }
+            fresh.add(new Term(e.getKey(), e.getValue()));
+        }
+        fresh.sort(Term.byDescendingWeightOrder());
+
+        List<Term> result = new ArrayList<>(Math.min(k, 64));
+        Iterator<Term> base = s.base.matchesByWeight(prefix);
+        Term nextBase = nextUnchanged(base, s.delta);
+        int d = 0;
+        while (result.size() < k && (nextBase != null || d < fresh.size())) {
+            if (nextBase != null && (d == fresh.size()
+                    || nextBase.getWeight() >= fresh.get(d).getWeight())) {
+                result.add(nextBase);
+                nextBase = nextUnchanged(base, s.delta);
+            } else {
+                result.add(fresh.get(d++));
+            }
+        }
+        return result.toArray(new Term[0]);
+    }
+
+    /** Returns the next base term whose query is not overridden by the delta, or null. */
+    private static Term nextUnchanged(Iterator<Term> base, NavigableMap<String, Long> delta) {
+        while (base.hasNext()) {
+            Term t = base.next();
+            if (!delta.containsKey(t.getQuery())) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the given terms sorted by query with duplicate queries removed,
+     * keeping the last occurrence of each. The sort is stable, so that is
+     * the last of each run of equal queries.
+     */
+    private static Term[] distinct(Term[] terms) {
+        Term[] sorted = terms.clone();
+        Autocomplete.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (n > 0 && sorted[n - 1].getQuery().equals(sorted[i].getQuery())) {
+                n--;
+            }
+            sorted[n++] = sorted[i];
+        }
+        return Arrays.copyOf(sorted, n);
+    }
+
+    /**
+     * Returns a base index over the given sorted, distinct terms with its
+     * weight index already built, so the first readers after it is published
+     * do not wait for that build.
+     */
+    private static Autocomplete newBase(Term[] terms) {
+        Autocomplete base = new Autocomplete(PackedTermStore.of(terms));
+        base.buildWeightIndex();
+        return base;
+    }
+
+    /**
+     * Merges the delta of the current snapshot into a new base index and
+     * publishes it. Updates that arrive while the merge runs stay in the delta
+     * of the published snapshot.
+     */
+    private void compact() {
+        try {
+            Snapshot s = current.get();
+            TermStore store = s.base.store();
+            Term[] merged = new Term[store.size() + s.delta.size()];
+            int n = 0;
+            int i = 0;
+            Iterator<Map.Entry<String, Long>> it = s.delta.entrySet().iterator();
+            Map.Entry<String, Long> e = it.hasNext() ? it.next() : null;
+            while (i < store.size() || e != null) {
+                int cmp = (i == store.size()) ? 1 : (e == null) ? -1 : store.queryAt(i).compareTo(e.getKey());
+                if (cmp < 0) {
+                    merged[n++] = store.termAt(i++);
+                } else {
+                    String key = e.getKey();
+                    merged[n++] = new Term(key, e.getValue());
+                    // the delta entry replaces every base term with its query
+                    while (i < store.size() && store.queryAt(i).equals(key)) {
+                        i++;
+                    }
+                    e = it.hasNext() ? it.next() : null;
+                }
+            }
+            Autocomplete base = newBase(Arrays.copyOf(merged, n));
+
+            synchronized (this) {
+                // keep only the updates made after the merge started
+                TreeMap<String, Long> rest = new TreeMap<>(current.get().delta);
+                for (Map.Entry<String, Long> done : s.delta.entrySet()) {
+                    rest.remove(done.getKey(), done.getValue());
+                }
+                current.set(new Snapshot(base, Collections.unmodifiableNavigableMap(rest)));
+            }
+        } finally {
+            synchronized (this) {
+                pending = null;
+            }
+        }
+    }
+
+}
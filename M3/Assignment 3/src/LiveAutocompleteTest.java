@@ -0,0 +1,132 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LiveAutocompleteTest {
+
+    // queries are drawn from this alphabet, including U+FFFF, to exercise prefix bounds
+    private static final String ALPHABET = "ab\uFFFF";
+
+    @Test
+    public void duplicateBaseQueriesStayOverridden() throws Exception {
+        Term[] base = {new Term("x", 1), new Term("x", 2), new Term("y", 5)};
+        try (LiveAutocomplete live = new LiveAutocomplete(base, 100)) {
+            assertEquals("[y\t5, x\t2]", Arrays.toString(live.allMatches("")));
+            live.put("x", 100);
+            assertEquals("[x\t100, y\t5]", Arrays.toString(live.allMatches("")));
+            live.compactAsync().get();
+            assertEquals(0, live.pendingUpdates());
+            assertEquals("[x\t100, y\t5]", Arrays.toString(live.allMatches("")));
+        }
+    }
+
+    @Test
+    public void deltaKeysPastMaxValueMatchPrefix() {
+        try (LiveAutocomplete live = new LiveAutocomplete(new Term[0], 100)) {
+            live.put("a\uFFFFb", 3);
+            live.put("a", 1);
+            live.put("b", 7);
+            assertEquals("[a\uFFFFb\t3, a\t1]", Arrays.toString(live.allMatches("a")));
+            assertEquals("[a\uFFFFb\t3]", Arrays.toString(live.allMatches("a\uFFFF")));
+        }
+    }
+
+    @Test
+    public void compactionMatchesBruteForce() throws Exception {
+        Random random = new Random(10);
+        Term[] base = new Term[200];
+        Map<String, Long> model = new HashMap<>();
+        for (int i = 0; i < base.length; i++) {
+            base[i] = new Term(randomQuery(random), random.nextInt(1000));
+            // the last occurrence of a duplicate query wins
+            model.put(base[i].getQuery(), base[i].getWeight());
+        }
+        try (LiveAutocomplete live = new LiveAutocomplete(base, 1 + random.nextInt(20))) {
+            for (int step = 0; step < 500; step++) {
+                String key = randomQuery(random);
+                long weight = random.nextInt(1000);
+                live.put(key, weight);
+                model.put(key, weight);
+                if (random.nextInt(25) == 0) {
+                    live.compactAsync().get();
+                }
+                String query = randomQuery(random);
+                String prefix = query.substring(0, random.nextInt(Math.min(3, query.length() + 1)));
+                assertEquals(prefix, expected(model, prefix), normalized(live.allMatches(prefix)));
+                Term[] all = live.allMatches(prefix);
+                Term[] top = live.topMatches(prefix, 3);
+                assertEquals(Math.min(3, all.length), top.length);
+                for (int i = 0; i < top.length; i++) {
+                    assertEquals(all[i].getWeight(), top[i].getWeight());
+                }
+            }
+            live.compactAsync().get();
+            assertEquals(expected(model, ""), normalized(live.allMatches("")));
+        }
+    }
+
+    @Test
+    public void rejectsBadArguments() {
+        try (LiveAutocomplete live = new LiveAutocomplete(new Term[0], 1)) {
+            try {
+                live.put("a", -1);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertTrue(true);
+            }
+            try {
+                live.topMatches("a", 0);
+                fail("Expected IllegalArgumentException");
+            } catch (IllegalArgumentException e) {
+                assertTrue(true);
+            }
+        }
+        try {
+            new LiveAutocomplete(new Term[0], 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    /** Returns a query of one to four characters from ALPHABET. */
+    private static String randomQuery(Random random) {
+        StringBuilder query = new StringBuilder();
+        int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            query.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return query.toString();
+    }
+
+    /** Returns the model's terms starting with prefix, heaviest first, ties by query, as a string. */
+    private static String expected(Map<String, Long> model, String prefix) {
+        List<Term> terms = new ArrayList<>();
+        for (Map.Entry<String, Long> e : model.entrySet()) {
+            if (e.getKey().startsWith(prefix)) {
+                terms.add(new Term(e.getKey(), e.getValue()));
+            }
+        }
+        terms.sort(Term.byDescendingWeightOrder().thenComparing(Comparator.naturalOrder()));
+        return terms.toString();
+    }
+
+    /** Checks that matches are heaviest first, then orders ties by query and returns them as a string. */
+    private static String normalized(Term[] matches) {
+        for (int i = 1; i < matches.length; i++) {
+            assertTrue(matches[i - 1].getWeight() >= matches[i].getWeight());
+        }
+        List<Term> terms = new ArrayList<>(Arrays.asList(matches));
+        terms.sort(Term.byDescendingWeightOrder().thenComparing(Comparator.naturalOrder()));
+        return terms.toString();
+    }
+
+}
@@ -0,0 +1,129 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A TermStore read directly from a compiled index file through a read-only
+ * memory mapping. Nothing is parsed or sorted on open, and processes that map
+ * the same file share its pages in the operating system's cache. Index files
+ * are written by AutocompleteIndexCompiler.
+ */
+public class MappedTermStore implements TermStore {
+
+    /** Identifies an index file: the ASCII bytes "ACIX". */
+    static final int MAGIC = 0x41434958;
+
+    /** The index file layout version this class reads and writes. */
+    static final int VERSION = 1;
+
+    /** Size in bytes of the fixed header: magic, version, count, encoding, character count. */
+    static final int HEADER_BYTES = 24;
+
+    /** Encoding flags for the character section. */
+    static final int LATIN1 = 0;
+    static final int UTF16 = 1;
+
+    // views over the sections of the mapped file
+    private final LongBuffer weights;
+    private final IntBuffer offsets;
+    private final ByteBuffer latin1;
+    private final CharBuffer utf16;
+    private final int size;
+
+    /** Wraps an already-validated mapping. */
+    private MappedTermStore(MappedByteBuffer map, int size, int encoding) {
+        this.size = size;
+        int weightsAt = HEADER_BYTES;
+        int offsetsAt = weightsAt + 8 * size;
+        int charsAt = offsetsAt + 4 * (size + 1);
+        weights = map.slice(weightsAt, 8 * size).asLongBuffer();
+        offsets = map.slice(offsetsAt, 4 * (size + 1)).asIntBuffer();
+        ByteBuffer chars = map.slice(charsAt, map.capacity() - charsAt);
+        latin1 = (encoding == LATIN1) ? chars : null;
+        utf16 = (encoding == UTF16) ? chars.asCharBuffer() : null;
+    }
+
+    /**
+     * Maps the given index file. This method throws a NullPointerException if
+     * file is null and an IOException if the file cannot be read or is not an
+     * index of the supported version.
+     */
+    public static MappedTermStore open(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Index file larger than 2 GB: " + file);
+            }
+            if (length < HEADER_BYTES) {
+                throw new IOException("Not an autocomplete index: " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            if (map.getInt(0) != MAGIC) {
+                throw new IOException("Not an autocomplete index: " + file);
+            }
+            int version = map.getInt(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported index version " + version + ": " + file);
+            }
+            int size = map.getInt(8);
+            int encoding = map.getInt(12);
+            long chars = map.getLong(16);
+            long expected = HEADER_BYTES + 8L * size + 4L * (size + 1)
+                    + ((encoding == LATIN1) ? chars : 2 * chars);
+            if (size < 0 || (encoding != LATIN1 && encoding != UTF16) || expected != length) {
+                throw new IOException("Corrupt autocomplete index: " + file);
+            }
+            return new MappedTermStore(map, size, encoding);
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String queryAt(int i) {
+        int from = offsets.get(i);
+        int len = offsets.get(i + 1) - from;
+        if (latin1 != null) {
+            byte[] bytes = new byte[len];
+            latin1.get(from, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[len];
+        utf16.get(from, chars);
+        return new String(chars);
+    }
+
+    @Override
+    public long weightAt(int i) {
+        return weights.get(i);
+    }
+
+    @Override
+    public int comparePrefix(int i, String prefix) {
+        int from = offsets.get(i);
+        int len = Math.min(offsets.get(i + 1) - from, prefix.length());
+        for (int c = 0; c < len; c++) {
+            char ch = (latin1 != null) ? (char) (latin1.get(from + c) & 0xFF) : utf16.get(from + c);
+            int diff = ch - prefix.charAt(c);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return len - prefix.length();
+    }
+
+}
@@ -0,0 +1,206 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+
+/**
+ * Next-word completion over a phrase corpus.
+ *
+ * Each phrase is split into tokens at whitespace, as Character.isWhitespace
+ * defines it both here and when parsing typed text. Every adjacent pair of
+ * tokens credits the phrase's weight to that pair. The result is
+ * indexed by the first token of each pair, called the context. For every
+ * context, the tokens that follow it are kept in lexicographic order, with a
+ * range-maximum index over their weights. A lookup binary-searches the sorted
+ * contexts, narrows that context's follow-ons to those starting with the
+ * partly typed token, and pulls the heaviest out of the range without
+ * scanning it. That costs O(log n + k log k) however long the typed text is.
+ */
+public class NextWordIndex {
+
+    // the distinct context tokens, in ascending order
+    private final String[] contexts;
+
+    // the follow-ons of contexts[c] are follows[starts[c] .. starts[c + 1] - 1]
+    private final int[] starts;
+
+    // the follow-on tokens of every context, in lexicographic order within each context
+    private final Term[] follows;
+
+    // range-maximum index over the weights of follows
+    private final RangeMaxIndex weights;
+
+    /**
+     * Builds an index from the given phrases. A phrase with fewer than two
+     * tokens contributes nothing. The array itself is not modified. This
+     * method throws a NullPointerException if phrases or any element is null.
+     */
+    public NextWordIndex(Term[] phrases) {
+        if (phrases == null) {
+            throw new NullPointerException();
+        }
+        Map<String, Map<String, Long>> pairs = new HashMap<>();
+        for (Term phrase : phrases) {
+            String[] tokens = tokenize(phrase.getQuery());
+            for (int i = 0; i + 1 < tokens.length; i++) {
+                pairs.computeIfAbsent(tokens[i], t -> new HashMap<>())
+                        .merge(tokens[i + 1], phrase.getWeight(), Long::sum);
+            }
+        }
+        contexts = pairs.keySet().toArray(new String[0]);
+        Arrays.sort(contexts);
+        starts = new int[contexts.length + 1];
+        List<Term> all = new ArrayList<>();
+        for (int c = 0; c < contexts.length; c++) {
+            starts[c] = all.size();
+            List<Term> group = new ArrayList<>();
+            for (Map.Entry<String, Long> e : pairs.get(contexts[c]).entrySet()) {
+                group.add(new Term(e.getKey(), e.getValue()));
+            }
+            group.sort(Comparator.naturalOrder());
+            all.addAll(group);
+        }
+        starts[contexts.length] = all.size();
+        follows = all.toArray(new Term[0]);
+        long[] w = new long[follows.length];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = follows[i].getWeight();
+        }
+        weights = new RangeMaxIndex(w);
+    }
+
+    /**
+     * Reads phrases in the "query&lt;TAB&gt;weight" format of Term.toString, one
+     * per line, and builds an index from them. Blank lines are skipped. This
+     * method throws a NullPointerException if file is null and an IOException
+     * if the file cannot be read or a line has no valid weight.
+     */
+    public static NextWordIndex load(Path file) throws IOException {
+        if (file == null) {
+            throw new NullPointerException();
+        }
+        List<Term> phrases = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int number = 0;
+            while ((line = in.readLine()) != null) {
+                number++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                int tab = line.lastIndexOf('\t');
+                try {
+                    if (tab < 0) {
+                        throw new NumberFormatException();
+                    }
+                    long weight = Long.parseLong(line.substring(tab + 1).strip());
+                    phrases.add(new Term(line.substring(0, tab), weight));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Malformed phrase on line " + number + ": " + line);
+                }
+            }
+        }
+        return new NextWordIndex(phrases.toArray(new Term[0]));
+    }
+
+    /**
+     * Returns the number of distinct context tokens.
+     */
+    public int contextCount() {
+        return contexts.length;
+    }
+
+    /**
+     * Returns the k heaviest tokens that follow the last completed token of
+     * text, in descending order of weight. If text ends in whitespace its last
+     * token is complete and every follow-on qualifies. Otherwise the last
+     * token is still being typed: the one before it is the context, and only
+     * follow-ons that start with the partial token are returned. An empty
+     * array is returned if text has no completed token or nothing matches.
+     * This method throws a NullPointerException if text is null and an
+     * IllegalArgumentException if k is less than or equal to zero.
+     */
+    public Term[] nextWords(String text, int k) {
+        if (text == null) {
+            throw new NullPointerException();
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        int end = text.length();
+        // split off the token still being typed, if any
+        while (end > 0 && !Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        String partial = text.substring(end);
+        while (end > 0 && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        int begin = end;
+        while (begin > 0 && !Character.isWhitespace(text.charAt(begin - 1))) {
+            begin--;
+        }
+        if (begin == end) {
+            return new Term[0];
+        }
+        int c = Arrays.binarySearch(contexts, text.substring(begin, end));
+        if (c < 0) {
+            return new Term[0];
+        }
+        int[] bounds = BinarySearch.equalRange(starts[c], starts[c + 1],
+                i -> Term.comparePrefixes(follows[i].getQuery(), partial, partial.length()));
+        if (bounds[0] == -1) {
+            return new Term[0];
+        }
+        return heaviest(bounds[0], bounds[1], k);
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Returns the k heaviest follow-ons in follows[first..last], in descending
+     * order of weight, without scanning the range.
+     */
+    private Term[] heaviest(int first, int last, int k) {
+        Term[] result = new Term[Math.min(k, last - first + 1)];
+        PrimitiveIterator.OfInt indexes = weights.descending(first, last);
+        for (int n = 0; n < result.length; n++) {
+            result[n] = follows[indexes.nextInt()];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the tokens of s, split at Character.isWhitespace characters as
+     * nextWords does, so indexed and typed text tokenize the same way.
+     */
+    private static String[] tokenize(String s) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < s.length()) {
+            while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            int begin = i;
+            while (i < s.length() && !Character.isWhitespace(s.charAt(i))) {
+                i++;
+            }
+            if (i > begin) {
+                tokens.add(s.substring(begin, i));
+            }
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+}
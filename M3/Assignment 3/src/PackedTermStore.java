@@ -0,0 +1,125 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Column-oriented term storage. All queries are concatenated into one
+ * character array with an offsets array marking where each begins, and the
+ * weights are kept in a parallel long array. When every character fits in
+ * one byte the queries are stored as bytes, halving that column.
+ *
+ * Compared with a Term[] this drops the per-term Term, String and array
+ * headers, and prefix comparisons read the packed characters in place.
+ */
+public class PackedTermStore implements TermStore {
+
+    // query characters, exactly one of which is non-null
+    private final byte[] latin1;
+    private final char[] utf16;
+
+    // the query at index i occupies [offsets[i], offsets[i + 1])
+    private final int[] offsets;
+
+    // the weight of the term at index i
+    private final long[] weights;
+
+    /**
+     * Packs the given sorted queries and weights. Package-private; callers
+     * outside the package should use of(Term[]).
+     */
+    PackedTermStore(byte[] latin1, char[] utf16, int[] offsets, long[] weights) {
+        this.latin1 = latin1;
+        this.utf16 = utf16;
+        this.offsets = offsets;
+        this.weights = weights;
+    }
+
+    /**
+     * Returns a packed store holding the given terms in ascending
+     * lexicographic order. The array itself is not modified. This method
+     * throws a NullPointerException if terms or any element is null.
+     */
+    public static PackedTermStore of(Term[] terms) {
+        if (terms == null) {
+            throw new NullPointerException();
+        }
+        Term[] sorted = terms.clone();
+        Autocomplete.sort(sorted);
+        int n = sorted.length;
+        int[] offsets = new int[n + 1];
+        long[] weights = new long[n];
+        boolean narrow = true;
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            String q = sorted[i].getQuery();
+            total += q.length();
+            weights[i] = sorted[i].getWeight();
+            for (int c = 0; narrow && c < q.length(); c++) {
+                narrow = q.charAt(c) <= 0xFF;
+            }
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Corpus too large to pack");
+        }
+        byte[] latin1 = narrow ? new byte[(int) total] : null;
+        char[] utf16 = narrow ? null : new char[(int) total];
+        int pos = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = pos;
+            String q = sorted[i].getQuery();
+            if (narrow) {
+                for (int c = 0; c < q.length(); c++) {
+                    latin1[pos + c] = (byte) q.charAt(c);
+                }
+            } else {
+                q.getChars(0, q.length(), utf16, pos);
+            }
+            pos += q.length();
+        }
+        offsets[n] = pos;
+        return new PackedTermStore(latin1, utf16, offsets, weights);
+    }
+
+    @Override
+    public int size() {
+        return weights.length;
+    }
+
+    @Override
+    public String queryAt(int i) {
+        int from = offsets[i];
+        int len = offsets[i + 1] - from;
+        if (latin1 != null) {
+            return new String(latin1, from, len, StandardCharsets.ISO_8859_1);
+        }
+        return new String(utf16, from, len);
+    }
+
+    @Override
+    public long weightAt(int i) {
+        return weights[i];
+    }
+
+    @Override
+    public int comparePrefix(int i, String prefix) {
+        int from = offsets[i];
+        int len = Math.min(offsets[i + 1] - from, prefix.length());
+        for (int c = 0; c < len; c++) {
+            int diff = charAt(from + c) - prefix.charAt(c);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return len - prefix.length();
+    }
+
+    @Override
+    public long[] weights() {
+        return weights;
+    }
+
+    /** Returns the packed character at the given position. */
+    private char charAt(int pos) {
+        return (latin1 != null) ? (char) (latin1[pos] & 0xFF) : utf16[pos];
+    }
+
+}
@@ -0,0 +1,147 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least-recently-used cache of prefix query results. Each entry
+ * holds the match bounds of a prefix together with its heaviest matches, so
+ * a later query for a longer prefix can search inside a cached parent's
+ * bounds instead of the whole corpus. All methods are thread-safe.
+ */
+public class PrefixCache {
+
+    /** The cached result for one prefix. */
+    static final class Entry {
+        final int first;
+        final int last;
+        final Term[] top;
+
+        Entry(int first, int last, Term[] top) {
+            this.first = first;
+            this.last = last;
+            this.top = top;
+        }
+    }
+
+    // the maximum number of entries kept
+    private final int capacity;
+
+    // the number of top matches stored per entry
+    private final int depth;
+
+    // entries in access order, least recently used first
+    private final LinkedHashMap<String, Entry> entries;
+
+    // lookup outcomes, for sizing the cache against real traffic
+    private long hits;
+    private long parentHits;
+    private long misses;
+
+    /**
+     * Creates an empty cache holding at most capacity prefixes, each with up
+     * to depth top matches. This method throws an IllegalArgumentException
+     * if either argument is less than or equal to zero.
+     */
+    public PrefixCache(int capacity, int depth) {
+        if (capacity <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("Capacity and depth must be positive");
+        }
+        this.capacity = capacity;
+        this.depth = depth;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > PrefixCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the maximum number of prefixes this cache holds.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of top matches stored per prefix.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Returns the number of prefixes currently cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of queries answered directly from the cache.
+     */
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of queries answered by searching inside a cached
+     * parent prefix's bounds.
+     */
+    public synchronized long parentHitCount() {
+        return parentHits;
+    }
+
+    /**
+     * Returns the number of queries that found neither the prefix nor any of
+     * its parents in the cache.
+     */
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /**
+     * Removes every entry and resets the counters.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        hits = 0;
+        parentHits = 0;
+        misses = 0;
+    }
+
+    /**
+     * Returns the entry for prefix and counts a hit, or returns null.
+     */
+    synchronized Entry get(String prefix) {
+        Entry e = entries.get(prefix);
+        if (e != null) {
+            hits++;
+        }
+        return e;
+    }
+
+    /**
+     * Returns the entry for the longest cached proper prefix of prefix and
+     * counts a parent hit, or counts a miss and returns null.
+     */
+    synchronized Entry parentOf(String prefix) {
+        for (int len = prefix.length() - 1; len >= 0; len--) {
+            Entry e = entries.get(prefix.substring(0, len));
+            if (e != null) {
+                parentHits++;
+                return e;
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Stores the entry for prefix, evicting the least recently used entry if
+     * the cache is full.
+     */
+    synchronized void put(String prefix, Entry e) {
+        entries.put(prefix, e);
+    }
+
+}
@@ -0,0 +1,179 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+
+/**
+ * Range-maximum index over a fixed array of weights.
+ *
+ * Weights are grouped into blocks of BLOCK_SIZE entries. A sparse table over
+ * the block maxima answers the whole-block part of a query in O(1); the two
+ * partial blocks at either end are scanned directly. This keeps the table at
+ * roughly (n / BLOCK_SIZE) log n entries instead of n log n, which matters for
+ * corpora with millions of terms.
+ *
+ * descending(lo, hi) builds on argMax to list a range heaviest first. It is
+ * the top-k walk shared by Autocomplete, SuffixArrayIndex and NextWordIndex.
+ */
+public class RangeMaxIndex {
+
+    // the number of weights per block; must be a power of two
+    private static final int BLOCK_SIZE = 32;
+    private static final int BLOCK_SHIFT = 5;
+
+    // the indexed weights
+    private final long[] values;
+
+    // table[j][b] is the index of the maximum in blocks b .. b + 2^j - 1
+    private final int[][] table;
+
+    /**
+     * Builds an index over the given weights. The array is referenced, not
+     * copied, and must not be modified afterwards. This method throws a
+     * NullPointerException if values is null.
+     */
+    public RangeMaxIndex(long[] values) {
+        if (values == null) {
+            throw new NullPointerException();
+        }
+        this.values = values;
+        int blocks = (values.length + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+        int levels = 1;
+        while ((1 << levels) <= blocks) {
+            levels++;
+        }
+        table = new int[levels][];
+        table[0] = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            int lo = b << BLOCK_SHIFT;
+            int hi = Math.min(lo + BLOCK_SIZE, values.length) - 1;
+            table[0][b] = scan(lo, hi);
+        }
+        for (int j = 1; j < levels; j++) {
+            int span = 1 << (j - 1);
+            int count = blocks - (1 << j) + 1;
+            table[j] = new int[count];
+            for (int b = 0; b < count; b++) {
+                table[j][b] = better(table[j - 1][b], table[j - 1][b + span]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of indexed weights.
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the weight at index i.
+     */
+    public long valueAt(int i) {
+        return values[i];
+    }
+
+    /**
+     * Returns the index of the largest weight in values[lo..hi], inclusive.
+     * Ties go to the smaller index. This method throws an
+     * IndexOutOfBoundsException if the range is empty or out of bounds.
+     */
+    public int argMax(int lo, int hi) {
+        if (lo < 0 || hi >= values.length || lo > hi) {
+            throw new IndexOutOfBoundsException("Invalid range [" + lo + ", " + hi + "]");
+        }
+        int firstBlock = lo >> BLOCK_SHIFT;
+        int lastBlock = hi >> BLOCK_SHIFT;
+        if (lastBlock - firstBlock <= 1) {
+            return scan(lo, hi);
+        }
+        int best = scan(lo, ((firstBlock + 1) << BLOCK_SHIFT) - 1);
+        best = better(best, blockArgMax(firstBlock + 1, lastBlock - 1));
+        best = better(best, scan(lastBlock << BLOCK_SHIFT, hi));
+        return best;
+    }
+
+    /**
+     * Returns an iterator over the indexes lo..hi in descending order of
+     * weight, with ties in ascending order of index. Each step takes the
+     * heaviest remaining interval from a heap, reports its maximum, and splits
+     * the interval around it. The first k indexes therefore cost O(k log k),
+     * however large the range. The range is empty if lo is negative or
+     * greater than hi. This method throws an IndexOutOfBoundsException if hi
+     * is past the end of the weights for a non-empty range.
+     */
+    public PrimitiveIterator.OfInt descending(int lo, int hi) {
+        return new DescendingIterator(lo, hi);
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /** Returns the index of the maximum over whole blocks a..b using the sparse table. */
+    private int blockArgMax(int a, int b) {
+        int j = 31 - Integer.numberOfLeadingZeros(b - a + 1);
+        return better(table[j][a], table[j][b - (1 << j) + 1]);
+    }
+
+    /** Returns the index of the maximum in values[lo..hi] by linear scan. */
+    private int scan(int lo, int hi) {
+        int best = lo;
+        for (int i = lo + 1; i <= hi; i++) {
+            if (values[i] > values[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /** Returns whichever of the two indexes holds the larger weight, preferring the smaller index. */
+    private int better(int i, int j) {
+        if (values[i] != values[j]) {
+            return (values[i] > values[j]) ? i : j;
+        }
+        return Math.min(i, j);
+    }
+
+
+    ////////////////////
+    // Nested classes //
+    ////////////////////
+
+    /**
+     * Yields indexes heaviest first from a heap of {lo, hi, argMax} intervals.
+     */
+    private class DescendingIterator implements PrimitiveIterator.OfInt {
+        private final PriorityQueue<int[]> intervals = new PriorityQueue<>(
+                (a, b) -> (values[a[2]] != values[b[2]])
+                        ? Long.compare(values[b[2]], values[a[2]])
+                        : Integer.compare(a[2], b[2]));
+
+        DescendingIterator(int lo, int hi) {
+            push(lo, hi);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !intervals.isEmpty();
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more indexes in the range.");
+            }
+            int[] top = intervals.poll();
+            push(top[0], top[2] - 1);
+            push(top[2] + 1, top[1]);
+            return top[2];
+        }
+
+        private void push(int lo, int hi) {
+            if (lo >= 0 && lo <= hi) {
+                intervals.add(new int[] {lo, hi, argMax(lo, hi)});
+            }
+        }
+    }
+
+}
@@ -0,0 +1,248 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Substring ("contains") completion over a set of terms, using a suffix array.
+ *
+ * Every query is written into one text, with a '\0' separator after each. The
+ * suffix array lists the text positions in lexicographic order of the
+ * suffixes starting there. Separator suffixes are left out, so matches never
+ * cross a term boundary. The suffixes containing a fragment therefore form
+ * one contiguous range, found by binary search in O(m log n). Each suffix is
+ * mapped back to the term it falls in, and a range-maximum index over those
+ * terms' weights yields matches heaviest first without scanning the range.
+ *
+ * The suffix array is built by prefix doubling with radix sorting. That
+ * finishes in O(n log L), where L is the length of the longest repeated
+ * substring of the whole text. Every separator is the same '\0', so a
+ * repeated substring can run across term boundaries, for example through a
+ * duplicated run of terms. The build is therefore O(n log n) in the worst
+ * case, though typical corpora stop after a few rounds. No LCP array is kept:
+ * the search compares the fragment with suffixes directly, so one would cost
+ * 4n bytes and a build pass without speeding up any query.
+ */
+public class SuffixArrayIndex {
+
+    // the indexed terms, by term id
+    private final Term[] terms;
+
+    // sa[r] is the text position of the suffix of rank r
+    private final int[] sa;
+
+    // termOf[r] is the id of the term containing the suffix of rank r
+    private final int[] termOf;
+
+    // the concatenated queries
+    private final char[] text;
+
+    // range-maximum index over the weights of termOf, in rank order
+    private final RangeMaxIndex weights;
+
+    /**
+     * Builds an index over the given terms. The array is copied. This method
+     * throws a NullPointerException if terms or any element is null and an
+     * IllegalArgumentException if a query contains the character '\0'.
+     */
+    public SuffixArrayIndex(Term[] terms) {
+        if (terms == null) {
+            throw new NullPointerException();
+        }
+        this.terms = terms.clone();
+        int n = 0;
+        for (Term t : this.terms) {
+            if (t.getQuery().indexOf('\0') >= 0) {
+                throw new IllegalArgumentException("Query contains the separator character");
+            }
+            n += t.getQuery().length() + 1;
+        }
+        text = new char[n];
+        int[] owner = new int[n];
+        int pos = 0;
+        for (int id = 0; id < this.terms.length; id++) {
+            String q = this.terms[id].getQuery();
+            q.getChars(0, q.length(), text, pos);
+            for (int c = 0; c <= q.length(); c++) {
+                owner[pos + c] = id;
+            }
+            pos += q.length();
+            text[pos++] = '\0';
+        }
+
+        int[] full = buildSuffixArray(text);
+
+        // separator suffixes all start with '\0', so they are the first ranks
+        int skip = this.terms.length;
+        int m = n - skip;
+        sa = new int[m];
+        termOf = new int[m];
+        long[] w = new long[m];
+        for (int r = 0; r < m; r++) {
+            sa[r] = full[r + skip];
+            termOf[r] = owner[sa[r]];
+            w[r] = this.terms[termOf[r]].getWeight();
+        }
+        weights = new RangeMaxIndex(w);
+    }
+
+    /**
+     * Returns the number of indexed suffixes, the total length of the queries.
+     */
+    public int size() {
+        return sa.length;
+    }
+
+    /**
+     * Returns the k heaviest terms whose query contains fragment, in
+     * descending order of weight. Every query contains the empty fragment,
+     * including an empty query, which owns no suffix, so an empty fragment
+     * is answered from the weights directly. This method throws a NullPointerException
+     * if fragment is null and an IllegalArgumentException if k is less than
+     * or equal to zero.
+     */
+    public Term[] substringMatches(String fragment, int k) {
+        if (fragment == null) {
+            throw new NullPointerException();
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        if (fragment.isEmpty()) {
+            return heaviest(k);
+        }
+        int[] bounds = BinarySearch.equalRange(0, sa.length, r -> compare(sa[r], fragment));
+        List<Term> result = new ArrayList<>(Math.min(k, 64));
+        if (bounds[0] == -1) {
+            return new Term[0];
+        }
+        // A term containing the fragment several times owns several suffixes
+        // in the range; report it only the first (heaviest) time it appears.
+        Set<Integer> seen = new HashSet<>();
+        PrimitiveIterator.OfInt ranks = weights.descending(bounds[0], bounds[1]);
+        while (ranks.hasNext() && result.size() < k) {
+            int id = termOf[ranks.nextInt()];
+            if (seen.add(id)) {
+                result.add(terms[id]);
+            }
+        }
+        return result.toArray(new Term[0]);
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Compares the first fragment.length() characters of the suffix at pos
+     * with fragment. The separator sorts below every other character.
+     */
+    private int compare(int pos, String fragment) {
+        int m = fragment.length();
+        for (int c = 0; c < m; c++) {
+            if (pos + c == text.length) {
+                return -1;
+            }
+            int diff = text[pos + c] - fragment.charAt(c);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the k heaviest terms in descending order of weight, using a
+     * bounded min-heap over all terms.
+     */
+    private Term[] heaviest(int k) {
+        PriorityQueue<Term> heap = new PriorityQueue<>(
+                Math.min(k, terms.length) + 1, Term.byDescendingWeightOrder().reversed());
+        for (Term t : terms) {
+            heap.add(t);
+            if (heap.size() > k) {
+                heap.poll();
+            }
+        }
+        Term[] result = new Term[heap.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = heap.poll();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the suffix array of s by prefix doubling. Each round sorts the
+     * suffixes by their first 2h characters using two stable counting-sort
+     * passes over the ranks from the previous round, and stops as soon as
+     * every rank is distinct.
+     */
+    private static int[] buildSuffixArray(char[] s) {
+        int n = s.length;
+        int[] sa = new int[n];
+        int[] rank = new int[n];
+        int[] tmp = new int[n];
+        if (n == 0) {
+            return sa;
+        }
+        int classes = Math.max(n, Character.MAX_VALUE + 1) + 1;
+        int[] count = new int[classes];
+
+        for (int i = 0; i < n; i++) {
+            count[s[i]]++;
+        }
+        for (int c = 1; c < classes; c++) {
+            count[c] += count[c - 1];
+        }
+        for (int i = n - 1; i >= 0; i--) {
+            sa[--count[s[i]]] = i;
+        }
+        rank[sa[0]] = 0;
+        for (int r = 1; r < n; r++) {
+            rank[sa[r]] = rank[sa[r - 1]] + ((s[sa[r]] != s[sa[r - 1]]) ? 1 : 0);
+        }
+
+        for (int h = 1; rank[sa[n - 1]] < n - 1; h <<= 1) {
+            // order by second key: suffixes with no second half come first
+            int t = 0;
+            for (int i = n - h; i < n; i++) {
+                tmp[t++] = i;
+            }
+            for (int r = 0; r < n; r++) {
+                if (sa[r] >= h) {
+                    tmp[t++] = sa[r] - h;
+                }
+            }
+            // stable counting sort by first key
+            int maxRank = rank[sa[n - 1]] + 1;
+            Arrays.fill(count, 0, maxRank + 1, 0);
+            for (int i = 0; i < n; i++) {
+                count[rank[i]]++;
+            }
+            for (int c = 1; c < maxRank; c++) {
+                count[c] += count[c - 1];
+            }
+            for (int r = n - 1; r >= 0; r--) {
+                sa[--count[rank[tmp[r]]]] = tmp[r];
+            }
+            // re-rank, reusing tmp for the new ranks
+            tmp[sa[0]] = 0;
+            for (int r = 1; r < n; r++) {
+                int a = sa[r - 1];
+                int b = sa[r];
+                boolean same = rank[a] == rank[b]
+                        && ((a + h < n) ? rank[a + h] : -1) == ((b + h < n) ? rank[b + h] : -1);
+                tmp[b] = tmp[a] + (same ? 0 : 1);
+            }
+            int[] swap = rank;
+            rank = tmp;
+            tmp = swap;
+        }
+        return sa;
+    }
+
+}
@@ -0,0 +1,105 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SuffixArrayIndexTest {
+
+    @Test
+    public void matchesNaiveContains() {
+        Random random = new Random(15);
+        for (int trial = 0; trial < 30; trial++) {
+            Term[] terms = randomTerms(random.nextInt(300), "abc", random);
+            SuffixArrayIndex index = new SuffixArrayIndex(terms);
+            for (int q = 0; q < 200; q++) {
+                String fragment = randomString("abcd", 4, random);
+                int k = 1 + random.nextInt(20);
+                assertEquals(fragment, naive(terms, fragment, k),
+                        Arrays.toString(index.substringMatches(fragment, k)));
+            }
+        }
+    }
+
+    @Test
+    public void repeatedOccurrencesReportTermOnce() {
+        SuffixArrayIndex index = new SuffixArrayIndex(new Term[] {
+                new Term("banana", 3), new Term("bandana", 5), new Term("cab", 9), new Term("abba", 4)});
+        assertEquals("[bandana\t5, banana\t3]", Arrays.toString(index.substringMatches("an", 5)));
+        assertEquals("[cab\t9, abba\t4]", Arrays.toString(index.substringMatches("ab", 5)));
+        assertEquals("[bandana\t5]", Arrays.toString(index.substringMatches("na", 1)));
+        assertEquals(0, index.substringMatches("x", 5).length);
+    }
+
+    @Test
+    public void emptyFragmentMatchesEveryTerm() {
+        Term[] terms = {new Term("", 7), new Term("a", 2), new Term("b", 5)};
+        SuffixArrayIndex index = new SuffixArrayIndex(terms);
+        assertEquals("[\t7, b\t5, a\t2]", Arrays.toString(index.substringMatches("", 10)));
+        assertEquals("[\t7, b\t5]", Arrays.toString(index.substringMatches("", 2)));
+    }
+
+    @Test
+    public void rejectsBadArguments() {
+        SuffixArrayIndex index = new SuffixArrayIndex(new Term[] {new Term("a", 1)});
+        try {
+            index.substringMatches("a", 0);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            index.substringMatches(null, 1);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            assertTrue(true);
+        }
+        try {
+            new SuffixArrayIndex(new Term[] {new Term("a\0b", 1)});
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+    }
+
+    /** Returns n terms over alphabet with distinct weights, so the expected order is unique. */
+    private static Term[] randomTerms(int n, String alphabet, Random random) {
+        List<Integer> weights = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            weights.add(i);
+        }
+        Collections.shuffle(weights, random);
+        Term[] terms = new Term[n];
+        for (int i = 0; i < n; i++) {
+            terms[i] = new Term(randomString(alphabet, 8, random), weights.get(i));
+        }
+        return terms;
+    }
+
+    /** Returns the k heaviest terms whose query contains fragment, found by scanning. */
+    private static String naive(Term[] terms, String fragment, int k) {
+        List<Term> matches = new ArrayList<>();
+        for (Term t : terms) {
+            if (t.getQuery().contains(fragment)) {
+                matches.add(t);
+            }
+        }
+        matches.sort(Term.byDescendingWeightOrder());
+        return matches.subList(0, Math.min(k, matches.size())).toString();
+    }
+
+    /** Returns a string of up to maxLength characters from alphabet. */
+    private static String randomString(String alphabet, int maxLength, Random random) {
+        StringBuilder s = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            s.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return s.toString();
+    }
+
+}
@@ -58,13 +58,28 @@ public class Term implements Comparable<Term> {
         return new Comparator<Term>() {
             @Override
             public int compare(Term t1, Term t2) {
-                String prefix1 = t1.getQuery().substring(0, Math.min(length, t1.getQuery().length()));
-                String prefix2 = t2.getQuery().substring(0, Math.min(length, t2.getQuery().length()));
-                return prefix1.compareTo(prefix2);
+                return comparePrefixes(t1.getQuery(), t2.getQuery(), length);
             }
         };
     }
 
+    /**
+     * Compares the first length characters of a and b in place, with the same
+     * result as comparing the two truncated substrings.
+     */
+    static int comparePrefixes(String a, String b, int length) {
+        int lenA = Math.min(length, a.length());
+        int lenB = Math.min(length, b.length());
+        int lim = Math.min(lenA, lenB);
+        for (int i = 0; i < lim; i++) {
+            int diff = a.charAt(i) - b.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return lenA - lenB;
+    }
+
     /**
      * Compares this term with the other term in ascending lexicographic order
      * of query.
@@ -0,0 +1,95 @@
+/**
+ * Read-only storage for an autocomplete corpus, indexed from 0 to size() - 1
+ * in ascending lexicographic order of query. Autocomplete searches a store
+ * through these methods only, so the layout of the terms in memory is up to
+ * the implementation.
+ */
+public interface TermStore {
+
+    /**
+     * Returns the number of terms in this store.
+     */
+    int size();
+
+    /**
+     * Returns the query of the term at index i.
+     */
+    String queryAt(int i);
+
+    /**
+     * Returns the weight of the term at index i.
+     */
+    long weightAt(int i);
+
+    /**
+     * Returns the term at index i. Implementations that do not keep Term
+     * objects create one on each call.
+     */
+    default Term termAt(int i) {
+        return new Term(queryAt(i), weightAt(i));
+    }
+
+    /**
+     * Compares the first prefix.length() characters of the query at index i
+     * with prefix, with the same result as Term.byPrefixOrder(prefix.length()).
+     * Implementations should not allocate.
+     */
+    int comparePrefix(int i, String prefix);
+
+    /**
+     * Returns {first, last}, the bounds of the terms at indexes from..to whose
+     * queries start with prefix, or {-1, -1} if there are none. When
+     * comparisons is not null, comparisons[0] is increased by the number of
+     * queries compared with prefix; callers reuse the counter, so it must not
+     * be kept. The default binary-searches with comparePrefix. Stores whose
+     * random access costs more than one comparison override this with a
+     * search suited to their layout.
+     */
+    default int[] prefixRange(String prefix, int from, int to, int[] comparisons) {
+        // one probe for both cases, so counting costs no allocation of its own
+        return BinarySearch.equalRange(from, to + 1, i -> {
+            if (comparisons != null) {
+                comparisons[0]++;
+            }
+            return comparePrefix(i, prefix);
+        });
+    }
+
+    /**
+     * Galloping form of prefixRange for searches that sweep forward through
+     * the store. The match is expected to start near hint, and every query
+     * at an index before hint must sort below prefix, so the cost grows with
+     * the distance from hint rather than with to - hint. The default gallops
+     * with comparePrefix.
+     */
+    default int[] prefixRangeFrom(String prefix, int hint, int to, int[] comparisons) {
+        return BinarySearch.gallop(hint, to + 1, i -> {
+            if (comparisons != null) {
+                comparisons[0]++;
+            }
+            return comparePrefix(i, prefix);
+        });
+    }
+
+    /**
+     * Returns the weights of all terms in index order. The returned array may
+     * be the store's own and must not be modified.
+     */
+    default long[] weights() {
+        long[] w = new long[size()];
+        for (int i = 0; i < w.length; i++) {
+            w[i] = weightAt(i);
+        }
+        return w;
+    }
+
+    /**
+     * Returns the form of prefix that comparePrefix expects. Stores that
+     * search on a normalized key override this; Autocomplete calls it once per
+     * query, so the search loop itself stays a plain character comparison.
+     */
+    default String normalize(String prefix) {
+        return prefix;
+    }
+
+}
@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Autocomplete backed by a compressed radix trie. Every node records the
+ * maximum weight found anywhere in its subtree, so the k heaviest completions
+ * of a prefix can be found by best-first search without sorting the whole
+ * match range.
+ */
+public class TrieAutocomplete {
+
+    // the root of the trie; its label is always the empty string
+    private final Node root;
+
+    // the number of terms stored in the trie
+    private final int size;
+
+    /** A trie node. The label is the edge text leading into this node. */
+    private static class Node {
+        private String label;
+        private Term[] terms;
+        private char[] firstChars;
+        private Node[] children;
+        private long maxWeight;
+
+        /** Constructs a node reached by the given edge label. */
+        Node(String label) {
+            this.label = label;
+            this.terms = new Term[0];
+            this.firstChars = new char[0];
+            this.children = new Node[0];
+            this.maxWeight = -1;
+        }
+
+        /** Returns the child whose label starts with c, or null. */
+        Node child(char c) {
+            int i = Arrays.binarySearch(firstChars, c);
+            return (i < 0) ? null : children[i];
+        }
+    }
+
+    /**
+     * Initializes a trie from the given array of terms. The array itself is
+     * not modified. This method throws a NullPointerException if terms is null.
+     */
+    public TrieAutocomplete(Term[] terms) {
+        if (terms == null) {
+            throw new NullPointerException();
+        }
+        Term[] sorted = terms.clone();
+        Autocomplete.sort(sorted);
+        size = sorted.length;
+        root = build(sorted, 0, sorted.length - 1, 0, "");
+    }
+
+    /**
+     * Returns the number of terms in this trie.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns all terms that start with the given prefix, in descending order of weight.
+     * This method throws a NullPointerException if prefix is null.
+     */
+    public Term[] allMatches(String prefix) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        Node n = locate(prefix);
+        if (n == null) {
+            return new Term[0];
+        }
+        List<Term> matches = new ArrayList<>();
+        collect(n, matches);
+        Term[] result = matches.toArray(new Term[0]);
+        Arrays.sort(result, Term.byDescendingWeightOrder());
+        return result;
+    }
+
+    /**
+     * Returns the k heaviest terms that start with the given prefix, in
+     * descending order of weight. Fewer than k terms are returned if fewer
+     * match. This method throws a NullPointerException if prefix is null and
+     * an IllegalArgumentException if k is less than or equal to zero.
+     */
+    public Term[] topMatches(String prefix, int k) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("k must be positive");
+        }
+        Node n = locate(prefix);
+        if (n == null) {
+            return new Term[0];
+        }
+        List<Node> roots = new ArrayList<>();
+        roots.add(n);
+        return heaviest(roots, k);
+    }
+
+    /**
+     * Returns the k heaviest terms that start with some string within
+     * maxEdits insertions, deletions or substitutions of prefix, in descending
+     * order of weight. The search walks the trie while tracking the edit
+     * distance of the path so far, in the manner of a Levenshtein automaton,
+     * and abandons a branch as soon as every alignment exceeds the budget.
+     * This method throws a NullPointerException if prefix is null and an
+     * IllegalArgumentException if maxEdits is negative or k is less than or
+     * equal to zero.
+     */
+    public Term[] fuzzyMatches(String prefix, int maxEdits, int k) {
+        if (prefix == null) {
+            throw new NullPointerException();
+        }
+        if (maxEdits < 0 || k <= 0) {
+            throw new IllegalArgumentException("maxEdits must be non-negative and k positive");
+        }
+        // row[j] is the edit distance between the path so far and prefix[0..j)
+        int[] row = new int[prefix.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = j;
+        }
+        List<Node> accepted = new ArrayList<>();
+        if (row[prefix.length()] <= maxEdits) {
+            accepted.add(root);
+        } else {
+            for (Node child : root.children) {
+                fuzzyWalk(child, prefix, maxEdits, row, accepted);
+            }
+        }
+        return heaviest(accepted, k);
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Advances the edit-distance row along n's label. If the whole prefix is
+     * matched within budget at some point on the label, n's subtree is
+     * accepted; if every entry exceeds the budget, the branch is pruned.
+     */
+    private static void fuzzyWalk(Node n, String prefix, int maxEdits, int[] row, List<Node> accepted) {
+        int m = prefix.length();
+        int[] prev = row;
+        for (int i = 0; i < n.label.length(); i++) {
+            char c = n.label.charAt(i);
+            int[] next = new int[m + 1];
+            next[0] = prev[0] + 1;
+            int min = next[0];
+            for (int j = 1; j <= m; j++) {
+                int cost = (prefix.charAt(j - 1) == c) ? 0 : 1;
+                next[j] = Math.min(Math.min(prev[j] + 1, next[j - 1] + 1), prev[j - 1] + cost);
+                min = Math.min(min, next[j]);
+            }
+            if (next[m] <= maxEdits) {
+                accepted.add(n);
+                return;
+            }
+            if (min > maxEdits) {
+                return;
+            }
+            prev = next;
+        }
+        for (Node child : n.children) {
+            fuzzyWalk(child, prefix, maxEdits, prev, accepted);
+        }
+    }
+
+    /**
+     * Returns the k heaviest terms in the given disjoint subtrees, in
+     * descending order of weight.
+     */
+    private static Term[] heaviest(List<Node> roots, int k) {
+        // Best-first search: the frontier holds both whole subtrees (keyed by
+        // their max weight) and individual terms (keyed by their own weight).
+        // A term at the top of the frontier outweighs everything left unseen.
+        List<Term> result = new ArrayList<>(Math.min(k, 64));
+        PriorityQueue<Object> frontier = new PriorityQueue<>(
+                (a, b) -> Long.compare(weightOf(b), weightOf(a)));
+        for (Node n : roots) {
+            if (n.maxWeight >= 0) {
+                frontier.add(n);
+            }
+        }
+        while (!frontier.isEmpty() && result.size() < k) {
+            Object top = frontier.poll();
+            if (top instanceof Term) {
+                result.add((Term) top);
+                continue;
+            }
+            Node node = (Node) top;
+            for (Term t : node.terms) {
+                frontier.add(t);
+            }
+            for (Node child : node.children) {
+                frontier.add(child);
+            }
+        }
+        return result.toArray(new Term[0]);
+    }
+
+    /** Returns the priority of a frontier entry. */
+    private static long weightOf(Object o) {
+        return (o instanceof Term) ? ((Term) o).getWeight() : ((Node) o).maxWeight;
+    }
+
+    /**
+     * Builds the subtree for sorted[lo..hi], all of which share their first
+     * depth characters.
+     */
+    private static Node build(Term[] sorted, int lo, int hi, int depth, String label) {
+        Node n = new Node(label);
+        // terms that end exactly at this depth belong to this node
+        int end = lo;
+        while (end <= hi && sorted[end].getQuery().length() == depth) {
+            end++;
+        }
+        if (end > lo) {
+            n.terms = Arrays.copyOfRange(sorted, lo, end);
+            Arrays.sort(n.terms, Term.byDescendingWeightOrder());
+            n.maxWeight = n.terms[0].getWeight();
+        }
+        // group the remaining terms by their next character
+        List<Node> children = new ArrayList<>();
+        int i = end;
+        while (i <= hi) {
+            char c = sorted[i].getQuery().charAt(depth);
+            int j = i;
+            while (j < hi && sorted[j + 1].getQuery().charAt(depth) == c) {
+                j++;
+            }
+            // in sorted order the first and last terms of a group bound its common prefix
+            int common = commonPrefix(sorted[i].getQuery(), sorted[j].getQuery(), depth + 1);
+            String edge = sorted[i].getQuery().substring(depth, common);
+            Node child = build(sorted, i, j, common, edge);
+            children.add(child);
+            n.maxWeight = Math.max(n.maxWeight, child.maxWeight);
+            i = j + 1;
+        }
+        n.children = children.toArray(new Node[0]);
+        n.firstChars = new char[n.children.length];
+        for (int c = 0; c < n.children.length; c++) {
+            n.firstChars[c] = n.children[c].label.charAt(0);
+        }
+        return n;
+    }
+
+    /** Returns the length of the common prefix of a and b, known to be at least from. */
+    private static int commonPrefix(String a, String b, int from) {
+        int limit = Math.min(a.length(), b.length());
+        int i = from;
+        while (i < limit && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the node whose subtree holds exactly the terms starting with
+     * prefix, or null if there are none. The prefix may end partway along
+     * the returned node's edge label.
+     */
+    private Node locate(String prefix) {
+        Node n = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = n.child(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            int len = Math.min(child.label.length(), prefix.length() - i);
+            if (!child.label.regionMatches(0, prefix, i, len)) {
+                return null;
+            }
+            i += len;
+            n = child;
+        }
+        return (n.maxWeight < 0) ? null : n;
+    }
+
+    /** Adds every term in the subtree rooted at n to the given list. */
+    private static void collect(Node n, List<Term> out) {
+        out.addAll(Arrays.asList(n.terms));
+        for (Node child : n.children) {
+            collect(child, out);
+        }
+    }
+
+}
@@ -0,0 +1,253 @@
+import java.util.Collection;
+
+/**
+ * A LinkedSet that also keeps an open-addressing hash index from each
+ * element to its node. The sorted doubly-linked list is unchanged, so
+ * iteration, equality and the merge-based set operations are inherited.
+ * contains and remove find their node through the index in expected O(1)
+ * time instead of scanning from front, and add uses the index for its
+ * duplicate check.
+ *
+ * The insertion point for add is found by walking from a finger, the node
+ * most recently added or removed next to, rather than from front. Appending
+ * in ascending order, inserting in descending order and inserting near the
+ * previous element therefore each cost O(1). Elements must have hashCode and
+ * equals methods consistent with their natural order.
+ */
+public class IndexedLinkedSet<T extends Comparable<T>> extends LinkedSet<T> {
+
+    /**
+     * The initial number of slots in the index; must be a power of two.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * The index, probed linearly. Each slot holds a node or null, and
+     * the table is kept at most half full.
+     */
+    private Node[] table;
+
+    /**
+     * The node where the next insertion search starts, or null if the
+     * set is empty.
+     */
+    private Node finger;
+
+    /**
+     * Instantiates an empty IndexedLinkedSet.
+     */
+    public IndexedLinkedSet() {
+        super();
+        table = newTable(INITIAL_CAPACITY);
+        finger = null;
+    }
+
+    /**
+     * Ensures the collection contains the specified element. Neither duplicate
+     * nor null values are allowed. This method ensures that the elements in the
+     * linked list are maintained in ascending natural order.
+     *
+     * @param element The element whose presence is to be ensured.
+     * @return true if collection is changed, false otherwise.
+     */
+    @Override
+    public boolean add(T element) {
+        if (element == null) {
+            return false;
+        }
+        int i = slot(element);
+        if (table[i] != null) {
+            return false;
+        }
+        Node n = new Node(element);
+        link(n);
+        table[i] = n;
+        size++;
+        finger = n;
+        if (2 * size > table.length) {
+            resize(2 * table.length);
+        }
+        return true;
+    }
+
+    /**
+     * Ensures the collection contains every element of the specified
+     * collection. Null and duplicate values are ignored. The elements
+     * are sorted once and then added in ascending order, so each
+     * insertion starts from the finger left by the one before and
+     * every node is entered in the index. This method throws a
+     * NullPointerException if elements is null.
+     *
+     * @param elements The elements whose presence is to be ensured.
+     * @return true if collection is changed, false otherwise.
+     */
+    @Override
+    public boolean addAll(Collection<T> elements) {
+        if (elements == null) {
+            throw new NullPointerException();
+        }
+        boolean changed = false;
+        for (T element : sortedDistinct(elements)) {
+            changed |= add(element);
+        }
+        return changed;
+    }
+
+    /**
+     * Ensures the collection does not contain the specified element.
+     * If the specified element is present, this method removes it
+     * from the collection. The node is found through the index, so
+     * no scan from front is needed.
+     *
+     * @param element The element to be removed.
+     * @return true if collection is changed, false otherwise.
+     */
+    @Override
+    public boolean remove(T element) {
+        if (element == null) {
+            return false;
+        }
+        int i = slot(element);
+        Node n = table[i];
+        if (n == null) {
+            return false;
+        }
+        if (n.prev == null) {
+            front = n.next;
+        } else {
+            n.prev.next = n.next;
+        }
+        if (n.next == null) {
+            rear = n.prev;
+        } else {
+            n.next.prev = n.prev;
+        }
+        if (finger == n) {
+            finger = (n.prev != null) ? n.prev : n.next;
+        }
+        delete(i);
+        size--;
+        return true;
+    }
+
+    /**
+     * Searches for specified element in this collection in expected
+     * O(1) time.
+     *
+     * @param element The element whose presence in this collection is to be tested.
+     * @return true if this collection contains the specified element, false otherwise.
+     */
+    @Override
+    public boolean contains(T element) {
+        return element != null && table[slot(element)] != null;
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Links n into the list in ascending order. The ends are checked
+     * first, so sorted input never walks; otherwise the search starts
+     * at the finger and moves toward n's position.
+     */
+    private void link(Node n) {
+        T element = n.element;
+        if (front == null) {
+            front = n;
+            rear = n;
+            return;
+        }
+        if (rear.element.compareTo(element) < 0) {
+            rear.next = n;
+            n.prev = rear;
+            rear = n;
+            return;
+        }
+        if (front.element.compareTo(element) > 0) {
+            n.next = front;
+            front.prev = n;
+            front = n;
+            return;
+        }
+        // front < element < rear, so both walks stop before running off the list
+        Node f = finger;
+        if (f.element.compareTo(element) < 0) {
+            while (f.next.element.compareTo(element) < 0) {
+                f = f.next;
+            }
+        } else {
+            while (f.element.compareTo(element) > 0) {
+                f = f.prev;
+            }
+        }
+        // f is the last node less than element
+        n.prev = f;
+        n.next = f.next;
+        f.next.prev = n;
+        f.next = n;
+    }
+
+    /**
+     * Returns the slot holding element's node, or the empty slot
+     * where the probe for element ends.
+     */
+    private int slot(T element) {
+        int mask = table.length - 1;
+        int i = home(element, mask);
+        while (table[i] != null && !table[i].element.equals(element)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the slot at which the probe for element starts.
+     */
+    private static int home(Object element, int mask) {
+        int h = element.hashCode() * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Empties slot i, then shifts later entries of the same probe run
+     * back so that every remaining entry stays reachable from its home.
+     */
+    private void delete(int i) {
+        int mask = table.length - 1;
+        int hole = i;
+        table[hole] = null;
+        for (int j = (hole + 1) & mask; table[j] != null; j = (j + 1) & mask) {
+            int h = home(table[j].element, mask);
+            // the entry may fill the hole unless its home lies between the hole and j
+            if (((j - h) & mask) >= ((j - hole) & mask)) {
+                table[hole] = table[j];
+                table[j] = null;
+                hole = j;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index with the given number of slots.
+     */
+    private void resize(int capacity) {
+        Node[] old = table;
+        table = newTable(capacity);
+        for (Node n : old) {
+            if (n != null) {
+                table[slot(n.element)] = n;
+            }
+        }
+    }
+
+    /**
+     * Returns an empty index of the given capacity.
+     */
+    @SuppressWarnings("unchecked")
+    private Node[] newTable(int capacity) {
+        return (Node[]) new LinkedSet<?>.Node[capacity];
+    }
+
+}
@@ -0,0 +1,103 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class IndexedLinkedSetTest {
+
+    @Test
+    public void removeAndReAdd() {
+        IndexedLinkedSet<Integer> set = new IndexedLinkedSet<>();
+        TreeSet<Integer> model = new TreeSet<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(set.add(i));
+            model.add(i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(set.remove(i));
+            assertFalse(set.remove(i));
+            model.remove(i);
+        }
+        check(set, model, 1000);
+        for (int i = 998; i >= 0; i -= 2) {
+            assertTrue(set.add(i));
+            assertFalse(set.add(i));
+            model.add(i);
+        }
+        check(set, model, 1000);
+    }
+
+    @Test
+    public void randomOperationsMatchTreeSet() {
+        Random random = new Random(23);
+        for (int range : new int[] {8, 64, 4096}) {
+            IndexedLinkedSet<Integer> set = new IndexedLinkedSet<>();
+            TreeSet<Integer> model = new TreeSet<>();
+            for (int step = 0; step < 5000; step++) {
+                int element = random.nextInt(range);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(model.remove(element), set.remove(element));
+                } else {
+                    assertEquals(model.add(element), set.add(element));
+                }
+                if (step % 500 == 0) {
+                    check(set, model, range);
+                }
+            }
+            check(set, model, range);
+        }
+    }
+
+    @Test
+    public void addAllMergesAndIndexes() {
+        IndexedLinkedSet<Integer> set = new IndexedLinkedSet<>();
+        set.add(5);
+        set.add(1);
+        assertTrue(set.addAll(Arrays.asList(9, 3, null, 5, 3, 7)));
+        assertFalse(set.addAll(Arrays.asList(1, 9)));
+        check(set, new TreeSet<>(Arrays.asList(1, 3, 5, 7, 9)), 10);
+        try {
+            set.addAll(null);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            assertTrue(true);
+        }
+    }
+
+    @Test
+    public void nullIsNeverAnElement() {
+        IndexedLinkedSet<Integer> set = new IndexedLinkedSet<>();
+        assertFalse(set.add(null));
+        assertFalse(set.contains(null));
+        assertFalse(set.remove(null));
+        assertTrue(set.isEmpty());
+    }
+
+    /**
+     * Checks size, membership of every element in 0..range - 1, and both
+     * iteration orders against the model.
+     */
+    private static void check(IndexedLinkedSet<Integer> set, TreeSet<Integer> model, int range) {
+        assertEquals(model.size(), set.size());
+        for (int i = 0; i < range; i++) {
+            assertEquals(String.valueOf(i), model.contains(i), set.contains(i));
+        }
+        assertEquals(new ArrayList<>(model), toList(set.iterator()));
+        assertEquals(new ArrayList<>(model.descendingSet()), toList(set.descendingIterator()));
+    }
+
+    private static List<Integer> toList(Iterator<Integer> it) {
+        List<Integer> list = new ArrayList<>();
+        while (it.hasNext()) {
+            list.add(it.next());
+        }
+        return list;
+    }
+
+}
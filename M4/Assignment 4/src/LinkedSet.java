@@ -1,4 +1,8 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 /**
@@ -101,23 +105,26 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
     /**
      * Ensures the collection contains the specified element. Neither duplicate
      * nor null values are allowed. This method ensures that the elements in the
-     * linked list are maintained in ascending natural order.
+     * linked list are maintained in ascending natural order. An element
+     * greater than every element in the set is appended in O(1) time
+     * without a scan.
      *
      * @param element The element whose presence is to be ensured.
      * @return true if collection is changed, false otherwise.
      */
     public boolean add(T element) {
-        if (element == null || contains(element)) {
+        if (element == null) {
             return false;
         }
-        Node n = new Node(element);
-        // if front is null, set is empty so add to front
-        if (front == null) {
-            front = n;
-            rear = n;
-            size++;
+        // ascending appends cannot be duplicates, so they skip the contains scan
+        if (rear == null || rear.element.compareTo(element) < 0) {
+            linkLast(element);
             return true;
         }
+        if (contains(element)) {
+            return false;
+        }
+        Node n = new Node(element);
         // if the element is greater than the front, add it to the front
         if (front.element.compareTo(element) > 0) {
             n.next = front;
@@ -126,14 +133,6 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
             size++;
             return true;
         }
-        // if the element is less than the front, add it to the back
-        if (rear.element.compareTo(element) < 0) {
-            rear.next = n;
-            n.prev = rear;
-            rear = n;
-            size++;
-            return true;
-        }
         // iterate over set and find which value is less than the element, then add it behind that element.
         Node f = front;
         while (f != null) {
@@ -150,6 +149,64 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         return false;
     }
 
+    /**
+     * Ensures the collection contains every element of the specified
+     * collection. Null and duplicate values are ignored. The elements
+     * are sorted once and merged into the list in a single pass, so
+     * this runs in O(n + m log m) rather than m separate adds. If they
+     * all follow the current last element, they are appended at rear
+     * without walking the list. This method throws a NullPointerException
+     * if elements is null.
+     *
+     * @param elements The elements whose presence is to be ensured.
+     * @return true if collection is changed, false otherwise.
+     */
+    public boolean addAll(Collection<T> elements) {
+        if (elements == null) {
+            throw new NullPointerException();
+        }
+        List<T> sorted = sortedDistinct(elements);
+        if (sorted.isEmpty()) {
+            return false;
+        }
+        boolean changed = false;
+        Node f = (rear == null || rear.element.compareTo(sorted.get(0)) < 0) ? null : front;
+        for (T element : sorted) {
+            while (f != null && f.element.compareTo(element) < 0) {
+                f = f.next;
+            }
+            if (f == null) {
+                linkLast(element);
+                changed = true;
+            } else if (f.element.compareTo(element) != 0) {
+                linkBefore(element, f);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns a new LinkedSet holding the given elements. Null and
+     * duplicate values are ignored. Input that is already in ascending
+     * order is linked in one O(n) pass; anything else is sorted first,
+     * for O(n log n) in total. This method throws a NullPointerException
+     * if elements is null.
+     *
+     * @param elements The elements of the new set.
+     * @return a LinkedSet containing the given elements
+     */
+    public static <T extends Comparable<T>> LinkedSet<T> fromSorted(Iterable<T> elements) {
+        if (elements == null) {
+            throw new NullPointerException();
+        }
+        LinkedSet<T> set = new LinkedSet<>();
+        for (T element : sortedDistinct(elements)) {
+            set.linkLast(element);
+        }
+        return set;
+    }
+
     /**
      * Ensures the collection does not contain the specified element.
      * If the specified element is present, this method removes it
@@ -270,6 +327,9 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         if (s == null){
             return null;
         }
+        if (s instanceof LinkedSet) {
+            return union((LinkedSet<T>) s);
+        }
         if (s.equals(this) || this.isEmpty()){
             return s;
         }
@@ -289,6 +349,7 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
 
     /**
      * Returns a set that is the union of this set and the parameter set.
+     * Both lists are merged in one pass, so this runs in O(n + m).
      * @return a set that contains all the elements of this set and the parameter set
      */
     public Set<T> union(LinkedSet<T> s) {
@@ -304,13 +365,25 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         LinkedSet<T> union = new LinkedSet<T>();
         Node n = front;
         Node p = s.front;
-        while (n != null){
-            union.add(n.element);
-            n = n.next;
+        while (n != null && p != null){
+            int cmp = n.element.compareTo(p.element);
+            if (cmp < 0){
+                union.linkLast(n.element);
+                n = n.next;
+            } else if (cmp > 0){
+                union.linkLast(p.element);
+                p = p.next;
+            } else {
+                union.linkLast(n.element);
+                n = n.next;
+                p = p.next;
+            }
         }
-        while (p != null){
-            union.add(p.element);
-            p = p.next;
+        for (; n != null; n = n.next){
+            union.linkLast(n.element);
+        }
+        for (; p != null; p = p.next){
+            union.linkLast(p.element);
         }
         return union;
     }
@@ -325,6 +398,9 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         if (s == null){
             return null;
         }
+        if (s instanceof LinkedSet) {
+            return intersection((LinkedSet<T>) s);
+        }
         Set<T> intersection = new LinkedSet<T>();
         for (T element : s){
             if (this.contains(element)){
@@ -336,8 +412,8 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
 
     /**
      * Returns a set that is the intersection of this set and
-     * the parameter set.
-     *
+     * the parameter set. Both lists are merged in one pass, so
+     * this runs in O(n + m).
      *
      * @return a set that contains elements that are in both
      * this set and the parameter set
@@ -346,17 +422,20 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         if (s == null){
             return null;
         }
-        Set<T> intersection = new LinkedSet<T>();
+        LinkedSet<T> intersection = new LinkedSet<T>();
         Node n = front;
         Node p = s.front;
-        if (n == null || p == null){
-            return intersection;
-        }
-        while (n != null){
-            if (s.contains(n.element)){
-                intersection.add(n.element);
+        while (n != null && p != null){
+            int cmp = n.element.compareTo(p.element);
+            if (cmp < 0){
+                n = n.next;
+            } else if (cmp > 0){
+                p = p.next;
+            } else {
+                intersection.linkLast(n.element);
+                n = n.next;
+                p = p.next;
             }
-            n = n.next;
         }
         return intersection;
     }
@@ -371,6 +450,9 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         if (s == null){
             return null;
         }
+        if (s instanceof LinkedSet) {
+            return complement((LinkedSet<T>) s);
+        }
         Set<T> comp = new LinkedSet<>();
         for (T element : this){
             if (s.contains(element)){
@@ -384,7 +466,8 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
 
     /**
      * Returns a set that is the complement of this set and
-     * the parameter set.
+     * the parameter set. Both lists are merged in one pass, so
+     * this runs in O(n + m).
      *
      * @return a set that contains elements that are in this
      * set but not the parameter set
@@ -393,11 +476,16 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         if (s == null){
             return null;
         }
-        Set<T> comp = new LinkedSet<>();
+        LinkedSet<T> comp = new LinkedSet<>();
         Node n = front;
+        Node p = s.front;
         while (n != null){
-            if (!s.contains(n.element)){
-                comp.add(n.element);
+            // skip the elements of s that are smaller than n
+            while (p != null && p.element.compareTo(n.element) < 0){
+                p = p.next;
+            }
+            if (p == null || p.element.compareTo(n.element) != 0){
+                comp.linkLast(n.element);
             }
             n = n.next;
         }
@@ -430,11 +518,18 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
     /**
      * Returns an iterator over the members of the power set
      * of this LinkedSet. No specific order can be assumed.
+     * The elements are snapshotted once and subsets are visited
+     * in Gray-code order; see PowerSet. This method throws an
+     * IllegalStateException if the set has more than 62 elements,
+     * since the number of subsets would not fit in a long.
      *
      * @return an iterator over members of the power set
      */
     public Iterator<Set<T>> powerSetIterator() {
-        return new PowerSetLinkedSetIterator();
+        if (size > PowerSet.MAX_ELEMENTS) {
+            throw new IllegalStateException("Power set of " + size + " elements is too large to enumerate");
+        }
+        return new PowerSet<>(this).iterator();
     }
 
 
@@ -444,6 +539,68 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
 
     // Feel free to add as many private methods as you need.
 
+    /**
+     * Returns the non-null elements of the given iterable in ascending
+     * order with duplicates removed. The sort is skipped when the
+     * elements already arrive in order.
+     */
+    static <T extends Comparable<T>> List<T> sortedDistinct(Iterable<T> elements) {
+        List<T> list = new ArrayList<>();
+        boolean ordered = true;
+        for (T element : elements) {
+            if (element == null) {
+                continue;
+            }
+            if (!list.isEmpty() && list.get(list.size() - 1).compareTo(element) >= 0) {
+                ordered = false;
+            }
+            list.add(element);
+        }
+        if (ordered) {
+            return list;
+        }
+        Collections.sort(list);
+        int n = 0;
+        for (T element : list) {
+            if (n == 0 || list.get(n - 1).compareTo(element) != 0) {
+                list.set(n++, element);
+            }
+        }
+        return list.subList(0, n);
+    }
+
+    /**
+     * Links a new node holding element just before node f, which
+     * must be in this list.
+     */
+    private void linkBefore(T element, Node f) {
+        Node n = new Node(element);
+        n.next = f;
+        n.prev = f.prev;
+        if (f.prev == null) {
+            front = n;
+        } else {
+            f.prev.next = n;
+        }
+        f.prev = n;
+        size++;
+    }
+
+    /**
+     * Appends element after rear in O(1). The caller guarantees that
+     * element is greater than every element already in this set.
+     */
+    private void linkLast(T element) {
+        Node n = new Node(element);
+        if (rear == null) {
+            front = n;
+        } else {
+            rear.next = n;
+            n.prev = rear;
+        }
+        rear = n;
+        size++;
+    }
 
 
     private Node locate(T element) {
@@ -503,41 +660,6 @@ public class LinkedSet<T extends Comparable<T>> implements Set<T> {
         }
     }
 
-    private class PowerSetLinkedSetIterator implements Iterator<Set<T>> {
-        private int powerSetSize = (int) Math.pow(2, size);
-        private int current = 0;
-
-        @Override
-        public boolean hasNext() {
-            return current < powerSetSize;
-        }
-
-        @Override
-        public Set<T> next() {
-            if (!hasNext()) {
-                throw new NoSuchElementException("No more elements in the power set.");
-            }
-            LinkedSet<T> subset = new LinkedSet<>();
-            int mask = 1;
-            for (int i = 0; i < size; i++) {
-                if ((current & mask) != 0) {
-                    subset.add(getElement(i));
-                }
-                mask = mask << 1;
-            }
-            current++;
-            return subset;
-        }
-
-        private T getElement(int index) {
-            Node n = front;
-            for (int i = 0; i < index; i++) {
-                n = n.next;
-            }
-            return n.element;
-        }
-    }
-
     //////////////////////////////////////////////
     // DO NOT CHANGE THE NODE CLASS IN ANY WAY. //
     //////////////////////////////////////////////
@@ -0,0 +1,336 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Enumerates the power set of a set of elements.
+ *
+ * The elements are copied into an array once, in ascending natural
+ * order. A subset is then a bit mask over that array, and subsets are
+ * visited in Gray-code order: subset r is the mask r ^ (r >>> 1), so
+ * consecutive subsets differ by exactly one element. Ranks are longs,
+ * so sets of up to 62 elements can be enumerated.
+ *
+ * iterator() returns each subset as a new LinkedSet. views() returns
+ * a single reusable subset view that is updated in place on every
+ * step, for callers that do not keep subsets. spliterator() splits
+ * the rank range, so the enumeration can run on parallel streams.
+ */
+public class PowerSet<T extends Comparable<T>> implements Iterable<Set<T>> {
+
+    /**
+     * The largest number of elements whose power set can be enumerated;
+     * 2^62 is the largest power of two that fits in a long.
+     */
+    public static final int MAX_ELEMENTS = 62;
+
+    /**
+     * The elements, in ascending natural order. Bit i of a subset mask
+     * stands for elements[i].
+     */
+    private final T[] elements;
+
+    /**
+     * Snapshots the given elements. Null and duplicate values are ignored.
+     * This method throws a NullPointerException if elements is null and an
+     * IllegalArgumentException if there are more than MAX_ELEMENTS distinct
+     * elements.
+     *
+     * @param elements The elements whose subsets are to be enumerated.
+     */
+    @SuppressWarnings("unchecked")
+    public PowerSet(Iterable<T> elements) {
+        if (elements == null) {
+            throw new NullPointerException();
+        }
+        Comparable<?>[] snapshot = LinkedSet.sortedDistinct(elements).toArray(new Comparable<?>[0]);
+        if (snapshot.length > MAX_ELEMENTS) {
+            throw new IllegalArgumentException("Power set of " + snapshot.length
+                    + " elements is too large to enumerate");
+        }
+        this.elements = (T[]) snapshot;
+    }
+
+    /**
+     * Returns the number of subsets, 2^n for n elements.
+     *
+     * @return the size of the power set
+     */
+    public long size() {
+        return 1L << elements.length;
+    }
+
+    /**
+     * Returns an iterator over the subsets in Gray-code order. Each subset
+     * is a new LinkedSet that the caller may keep and modify.
+     *
+     * @return an iterator over the members of the power set
+     */
+    public Iterator<Set<T>> iterator() {
+        return new GrayIterator<Set<T>>() {
+            @Override
+            Set<T> current(long mask) {
+                return subset(mask);
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the subsets in Gray-code order that returns
+     * the same read-only view every time, updated in place by one element
+     * per step. A view is valid only until the next call to next; callers
+     * that keep subsets should copy them or use iterator() instead.
+     *
+     * @return an iterator over reusable views of the members of the power set
+     */
+    public Iterator<Set<T>> views() {
+        SubsetView view = new SubsetView();
+        return new GrayIterator<Set<T>>() {
+            @Override
+            Set<T> current(long mask) {
+                view.mask = mask;
+                return view;
+            }
+        };
+    }
+
+    /**
+     * Returns a spliterator over the subsets in Gray-code order. It splits
+     * its rank range in half, and each subset is a new LinkedSet.
+     *
+     * @return a spliterator over the members of the power set
+     */
+    @Override
+    public Spliterator<Set<T>> spliterator() {
+        return new GraySpliterator(0, size());
+    }
+
+    /**
+     * Returns a stream of the subsets, each a new LinkedSet.
+     *
+     * @param parallel true for a parallel stream
+     * @return a stream over the members of the power set
+     */
+    public Stream<Set<T>> stream(boolean parallel) {
+        return StreamSupport.stream(spliterator(), parallel);
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Returns the mask of the subset with the given rank.
+     */
+    private static long gray(long rank) {
+        return rank ^ (rank >>> 1);
+    }
+
+    /**
+     * Returns a new LinkedSet holding the elements selected by mask. The
+     * elements are added in ascending order, so each add is an O(1) append.
+     */
+    private LinkedSet<T> subset(long mask) {
+        LinkedSet<T> subset = new LinkedSet<>();
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            subset.add(elements[Long.numberOfTrailingZeros(rest)]);
+        }
+        return subset;
+    }
+
+
+    ////////////////////
+    // Nested classes //
+    ////////////////////
+
+    /**
+     * Walks the ranks 0 .. 2^n - 1, flipping one bit of the mask per step.
+     */
+    private abstract class GrayIterator<E> implements Iterator<E> {
+        private long rank = 0;
+        private long mask = 0;
+
+        /** Returns the value to hand out for the given mask. */
+        abstract E current(long mask);
+
+        @Override
+        public boolean hasNext() {
+            return rank < size();
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in the power set.");
+            }
+            if (rank > 0) {
+                // gray(r) and gray(r - 1) differ in the lowest set bit of r
+                mask ^= 1L << Long.numberOfTrailingZeros(rank);
+            }
+            rank++;
+            return current(mask);
+        }
+    }
+
+    /**
+     * Enumerates the ranks lo .. hi - 1.
+     */
+    private class GraySpliterator implements Spliterator<Set<T>> {
+        private long lo;
+        private final long hi;
+
+        GraySpliterator(long lo, long hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Set<T>> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (lo >= hi) {
+                return false;
+            }
+            action.accept(subset(gray(lo)));
+            lo++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Set<T>> action) {
+            if (action == null) {
+                throw new NullPointerException();
+            }
+            if (lo >= hi) {
+                return;
+            }
+            long mask = gray(lo);
+            action.accept(subset(mask));
+            for (long r = lo + 1; r < hi; r++) {
+                mask ^= 1L << Long.numberOfTrailingZeros(r);
+                action.accept(subset(mask));
+            }
+            lo = hi;
+        }
+
+        @Override
+        public Spliterator<Set<T>> trySplit() {
+            long mid = lo + (hi - lo) / 2;
+            if (mid <= lo) {
+                return null;
+            }
+            Spliterator<Set<T>> prefix = new GraySpliterator(lo, mid);
+            lo = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return hi - lo;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * A read-only Set backed by the element array and a mask. Lookups
+     * binary-search the array and test one bit.
+     */
+    private class SubsetView implements Set<T> {
+        private long mask;
+
+        @Override
+        public boolean add(T element) {
+            throw new UnsupportedOperationException("Subset views are read-only.");
+        }
+
+        @Override
+        public boolean remove(T element) {
+            throw new UnsupportedOperationException("Subset views are read-only.");
+        }
+
+        @Override
+        public boolean contains(T element) {
+            if (element == null) {
+                return false;
+            }
+            int i = Arrays.binarySearch(elements, element);
+            return i >= 0 && (mask & (1L << i)) != 0;
+        }
+
+        @Override
+        public int size() {
+            return Long.bitCount(mask);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return mask == 0;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private long rest = mask;
+
+                @Override
+                public boolean hasNext() {
+                    return rest != 0;
+                }
+
+                @Override
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException("No more elements in the set.");
+                    }
+                    T value = elements[Long.numberOfTrailingZeros(rest)];
+                    rest &= rest - 1;
+                    return value;
+                }
+            };
+        }
+
+        @Override
+        public boolean equals(Set<T> s) {
+            if (s == null || s.size() != size()) {
+                return false;
+            }
+            for (T element : s) {
+                if (!contains(element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Set<T> union(Set<T> s) {
+            return subset(mask).union(s);
+        }
+
+        @Override
+        public Set<T> intersection(Set<T> s) {
+            return subset(mask).intersection(s);
+        }
+
+        @Override
+        public Set<T> complement(Set<T> s) {
+            return subset(mask).complement(s);
+        }
+
+        @Override
+        public String toString() {
+            return subset(mask).toString();
+        }
+    }
+
+}
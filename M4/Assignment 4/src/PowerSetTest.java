@@ -0,0 +1,113 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PowerSetTest {
+
+    @Test
+    public void countsAreTwoToTheN() {
+        for (int n = 0; n <= 12; n++) {
+            PowerSet<Integer> powerSet = new PowerSet<>(elements(n, new Random(n)));
+            assertEquals(1L << n, powerSet.size());
+            assertEquals(1L << n, powerSet.spliterator().estimateSize());
+            int count = 0;
+            for (Iterator<Set<Integer>> it = powerSet.iterator(); it.hasNext(); it.next()) {
+                count++;
+            }
+            assertEquals(1 << n, count);
+            assertEquals(1L << n, powerSet.stream(true).count());
+        }
+    }
+
+    @Test
+    public void subsetAtRankIsItsGrayCode() {
+        int n = 8;
+        // elements 0..n-1, so element i stands for bit i of the mask
+        PowerSet<Integer> powerSet = new PowerSet<>(elements(n, new Random(25)));
+        Iterator<Set<Integer>> subsets = powerSet.iterator();
+        Iterator<Set<Integer>> views = powerSet.views();
+        long previous = 0;
+        for (long rank = 0; rank < powerSet.size(); rank++) {
+            long mask = mask(subsets.next());
+            assertEquals(rank ^ (rank >>> 1), mask);
+            assertEquals(mask, mask(views.next()));
+            if (rank > 0) {
+                // consecutive subsets differ by exactly one element
+                assertEquals(1, Long.bitCount(mask ^ previous));
+            }
+            previous = mask;
+        }
+        assertFalse(subsets.hasNext());
+        assertFalse(views.hasNext());
+    }
+
+    @Test
+    public void parallelStreamYieldsEverySubsetOnce() {
+        int n = 14;
+        PowerSet<Integer> powerSet = new PowerSet<>(elements(n, new Random(26)));
+        List<Long> masks = powerSet.stream(true).map(PowerSetTest::mask).collect(Collectors.toList());
+        assertEquals(1 << n, masks.size());
+        assertEquals(1 << n, new HashSet<>(masks).size());
+    }
+
+    @Test
+    public void nullsAndDuplicatesAreIgnored() {
+        PowerSet<Integer> powerSet = new PowerSet<>(Arrays.asList(3, null, 1, 3, 2, null));
+        assertEquals(8, powerSet.size());
+        LinkedSet<Integer> set = new LinkedSet<>();
+        set.add(1);
+        set.add(2);
+        set.add(3);
+        int count = 0;
+        for (Iterator<Set<Integer>> it = set.powerSetIterator(); it.hasNext(); it.next()) {
+            count++;
+        }
+        assertEquals(8, count);
+    }
+
+    @Test
+    public void rejectsBadArguments() {
+        try {
+            new PowerSet<>(elements(PowerSet.MAX_ELEMENTS + 1, new Random(27)));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(true);
+        }
+        try {
+            new PowerSet<Integer>(null);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            assertTrue(true);
+        }
+    }
+
+    /** Returns the integers 0..n-1 in random order. */
+    private static List<Integer> elements(int n, Random random) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+        Collections.shuffle(list, random);
+        return list;
+    }
+
+    /** Returns the bit mask of a subset of 0..62. */
+    private static long mask(Set<Integer> subset) {
+        long mask = 0;
+        for (int element : subset) {
+            assertEquals(0, mask & (1L << element));
+            mask |= 1L << element;
+        }
+        return mask;
+    }
+
+}
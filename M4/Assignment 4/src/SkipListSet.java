@@ -0,0 +1,499 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Provides an implementation of the Set interface.
+ * A skip list is used as the underlying data structure, so add,
+ * remove and contains run in expected O(log n) time. The bottom
+ * level is doubly linked and kept in ascending natural order, which
+ * gives ordered iteration in both directions. Union, intersection
+ * and complement merge the two sets in one pass when the parameter
+ * set is also ordered.
+ */
+public class SkipListSet<T extends Comparable<T>> implements Set<T> {
+
+    /**
+     * The maximum number of levels in the list.
+     */
+    private static final int MAX_LEVEL = 32;
+
+    /**
+     * Sentinel node whose next pointers start every level.
+     */
+    private final Node head;
+
+    /**
+     * The last node on the bottom level, or null if the set is empty.
+     */
+    private Node rear;
+
+    /**
+     * The number of levels currently in use.
+     */
+    private int level;
+
+    /**
+     * The number of elements in the set.
+     */
+    private int size;
+
+    /**
+     * Instantiates an empty SkipListSet.
+     */
+    public SkipListSet() {
+        head = new Node(null, MAX_LEVEL);
+        rear = null;
+        level = 1;
+        size = 0;
+    }
+
+
+    //////////////////////////////////////////////////
+    // Public interface and class-specific methods. //
+    //////////////////////////////////////////////////
+
+    /**
+     * Return a string representation of this SkipListSet.
+     *
+     * @return a string representation of this SkipListSet
+     */
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "[]";
+        }
+        StringBuilder result = new StringBuilder();
+        result.append("[");
+        for (T element : this) {
+            result.append(element + ", ");
+        }
+        result.delete(result.length() - 2, result.length());
+        result.append("]");
+        return result.toString();
+    }
+
+    /**
+     * Returns the current size of this collection.
+     *
+     * @return the number of elements in this collection.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Tests to see if this collection is empty.
+     *
+     * @return true if this collection contains no elements, false otherwise.
+     */
+    public boolean isEmpty() {
+        return (size == 0);
+    }
+
+    /**
+     * Ensures the collection contains the specified element. Neither duplicate
+     * nor null values are allowed. Runs in expected O(log n) time.
+     *
+     * @param element The element whose presence is to be ensured.
+     * @return true if collection is changed, false otherwise.
+     */
+    public boolean add(T element) {
+        if (element == null) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        Node[] update = (Node[]) new SkipListSet<?>.Node[MAX_LEVEL];
+        Node x = descend(element, update);
+        Node next = x.next[0];
+        if (next != null && next.element.compareTo(element) == 0) {
+            return false;
+        }
+        int height = randomLevel();
+        if (height > level) {
+            for (int i = level; i < height; i++) {
+                update[i] = head;
+            }
+            level = height;
+        }
+        Node n = new Node(element, height);
+        for (int i = 0; i < height; i++) {
+            n.next[i] = update[i].next[i];
+            update[i].next[i] = n;
+        }
+        n.prev = (x == head) ? null : x;
+        if (n.next[0] == null) {
+            rear = n;
+        } else {
+            n.next[0].prev = n;
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * Ensures the collection does not contain the specified element.
+     * If the specified element is present, this method removes it
+     * from the collection. Runs in expected O(log n) time.
+     *
+     * @param element The element to be removed.
+     * @return true if collection is changed, false otherwise.
+     */
+    public boolean remove(T element) {
+        if (element == null) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        Node[] update = (Node[]) new SkipListSet<?>.Node[MAX_LEVEL];
+        Node n = descend(element, update).next[0];
+        if (n == null || n.element.compareTo(element) != 0) {
+            return false;
+        }
+        for (int i = 0; i < n.next.length; i++) {
+            update[i].next[i] = n.next[i];
+        }
+        if (n.next[0] == null) {
+            rear = n.prev;
+        } else {
+            n.next[0].prev = n.prev;
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Searches for specified element in this collection.
+     * Runs in expected O(log n) time.
+     *
+     * @param element The element whose presence in this collection is to be tested.
+     * @return true if this collection contains the specified element, false otherwise.
+     */
+    public boolean contains(T element) {
+        if (element == null) {
+            return false;
+        }
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].element.compareTo(element) < 0) {
+                x = x.next[i];
+            }
+        }
+        x = x.next[0];
+        return x != null && x.element.compareTo(element) == 0;
+    }
+
+    /**
+     * Tests for equality between this set and the parameter set.
+     * Returns true if this set contains exactly the same elements
+     * as the parameter set, regardless of order.
+     *
+     * @return true if this set contains exactly the same elements as
+     * the parameter set, false otherwise
+     */
+    public boolean equals(Set<T> s) {
+        if (s == null) {
+            return false;
+        }
+        if (size != s.size()) {
+            return false;
+        }
+        Iterator<T> a = iterator();
+        Iterator<T> b = ascending(s);
+        while (a.hasNext()) {
+            if (a.next().compareTo(b.next()) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a set that is the union of this set and the parameter set.
+     * Runs in O(n + m) when the parameter set is ordered, and otherwise
+     * in O(n + m log m).
+     *
+     * @return a set that contains all the elements of this set and the parameter set
+     */
+    public Set<T> union(Set<T> s) {
+        if (s == null) {
+            return null;
+        }
+        SkipListSet<T> union = new SkipListSet<>();
+        Node[] tails = union.tails();
+        Node n = head.next[0];
+        Iterator<T> it = ascending(s);
+        T p = it.hasNext() ? it.next() : null;
+        while (n != null && p != null) {
+            int cmp = n.element.compareTo(p);
+            if (cmp <= 0) {
+                union.linkLast(n.element, tails);
+                n = n.next[0];
+            } else {
+                union.linkLast(p, tails);
+            }
+            if (cmp >= 0) {
+                p = it.hasNext() ? it.next() : null;
+            }
+        }
+        for (; n != null; n = n.next[0]) {
+            union.linkLast(n.element, tails);
+        }
+        for (; p != null; p = it.hasNext() ? it.next() : null) {
+            union.linkLast(p, tails);
+        }
+        return union;
+    }
+
+    /**
+     * Returns a set that is the intersection of this set and the parameter set.
+     * Runs in O(n + m) when the parameter set is ordered, and otherwise
+     * in O(n + m log m).
+     *
+     * @return a set that contains elements that are in both this set and the parameter set
+     */
+    public Set<T> intersection(Set<T> s) {
+        if (s == null) {
+            return null;
+        }
+        SkipListSet<T> intersection = new SkipListSet<>();
+        Node[] tails = intersection.tails();
+        Node n = head.next[0];
+        Iterator<T> it = ascending(s);
+        T p = it.hasNext() ? it.next() : null;
+        while (n != null && p != null) {
+            int cmp = n.element.compareTo(p);
+            if (cmp == 0) {
+                intersection.linkLast(n.element, tails);
+            }
+            if (cmp <= 0) {
+                n = n.next[0];
+            }
+            if (cmp >= 0) {
+                p = it.hasNext() ? it.next() : null;
+            }
+        }
+        return intersection;
+    }
+
+    /**
+     * Returns a set that is the complement of this set and the parameter set.
+     * Runs in O(n + m) when the parameter set is ordered, and otherwise
+     * in O(n + m log m).
+     *
+     * @return a set that contains elements that are in this set but not the parameter set
+     */
+    public Set<T> complement(Set<T> s) {
+        if (s == null) {
+            return null;
+        }
+        SkipListSet<T> comp = new SkipListSet<>();
+        Node[] tails = comp.tails();
+        Node n = head.next[0];
+        Iterator<T> it = ascending(s);
+        T p = it.hasNext() ? it.next() : null;
+        while (n != null) {
+            // skip the elements of s that are smaller than n
+            while (p != null && p.compareTo(n.element) < 0) {
+                p = it.hasNext() ? it.next() : null;
+            }
+            if (p == null || p.compareTo(n.element) != 0) {
+                comp.linkLast(n.element, tails);
+            }
+            n = n.next[0];
+        }
+        return comp;
+    }
+
+    /**
+     * Returns an iterator over the elements in this SkipListSet.
+     * Elements are returned in ascending natural order.
+     *
+     * @return an iterator over the elements in this SkipListSet
+     */
+    public Iterator<T> iterator() {
+        return new SkipListSetIterator();
+    }
+
+    /**
+     * Returns an iterator over the elements in this SkipListSet.
+     * Elements are returned in descending natural order.
+     *
+     * @return an iterator over the elements in this SkipListSet
+     */
+    public Iterator<T> descendingIterator() {
+        return new DescendingSkipListSetIterator();
+    }
+
+    /**
+     * Returns an iterator over the members of the power set
+     * of this SkipListSet. No specific order can be assumed.
+     * This method throws an IllegalStateException if the set has
+     * more than 62 elements, since the number of subsets would not
+     * fit in a long.
+     *
+     * @return an iterator over members of the power set
+     */
+    public Iterator<Set<T>> powerSetIterator() {
+        if (size > PowerSet.MAX_ELEMENTS) {
+            throw new IllegalStateException("Power set of " + size + " elements is too large to enumerate");
+        }
+        return new PowerSet<>(this).iterator();
+    }
+
+
+    //////////////////////////////
+    // Private utility methods. //
+    //////////////////////////////
+
+    /**
+     * Returns the last node whose element is less than element,
+     * recording in update the last such node on every level.
+     */
+    private Node descend(T element, Node[] update) {
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].element.compareTo(element) < 0) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        return x;
+    }
+
+    /**
+     * Returns a random node height, where each extra level has
+     * probability one half.
+     */
+    private static int randomLevel() {
+        int bits = ThreadLocalRandom.current().nextInt();
+        return Math.min(MAX_LEVEL, Integer.numberOfTrailingZeros(bits) + 1);
+    }
+
+    /**
+     * Returns the last node on every level, for use with linkLast.
+     * Only valid while this set is empty.
+     */
+    @SuppressWarnings("unchecked")
+    private Node[] tails() {
+        Node[] tails = (Node[]) new SkipListSet<?>.Node[MAX_LEVEL];
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            tails[i] = head;
+        }
+        return tails;
+    }
+
+    /**
+     * Appends element after rear in O(1) expected time. The caller
+     * guarantees that element is greater than every element already
+     * in this set.
+     */
+    private void linkLast(T element, Node[] tails) {
+        int height = randomLevel();
+        Node n = new Node(element, height);
+        for (int i = 0; i < height; i++) {
+            tails[i].next[i] = n;
+            tails[i] = n;
+        }
+        level = Math.max(level, height);
+        n.prev = rear;
+        rear = n;
+        size++;
+    }
+
+    /**
+     * Returns an iterator over the elements of s in ascending natural
+     * order. SkipListSet and LinkedSet already iterate in that order;
+     * any other set is copied and sorted.
+     */
+    private static <T extends Comparable<T>> Iterator<T> ascending(Set<T> s) {
+        if (s instanceof SkipListSet || s instanceof LinkedSet) {
+            return s.iterator();
+        }
+        List<T> sorted = new ArrayList<>(s.size());
+        for (T element : s) {
+            sorted.add(element);
+        }
+        Collections.sort(sorted);
+        return sorted.iterator();
+    }
+
+
+    ////////////////////
+    // Nested classes //
+    ////////////////////
+
+    private class SkipListSetIterator implements Iterator<T> {
+        private Node current = head.next[0];
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in the set.");
+            }
+            T value = current.element;
+            current = current.next[0];
+            return value;
+        }
+    }
+
+    private class DescendingSkipListSetIterator implements Iterator<T> {
+        private Node current = rear;
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more elements in the set.");
+            }
+            T value = current.element;
+            current = current.prev;
+            return value;
+        }
+    }
+
+    /**
+     * Defines a skip list node. next[i] is the following node on
+     * level i; prev is the preceding node on the bottom level.
+     */
+    private class Node {
+        /**
+         * the value stored in this node.
+         */
+        T element;
+        /**
+         * the nodes after this node, one per level.
+         */
+        Node[] next;
+        /**
+         * a reference to the node before this node on the bottom level.
+         */
+        Node prev;
+
+        /**
+         * Instantiate a node that contains element and spans
+         * the given number of levels.
+         */
+        @SuppressWarnings("unchecked")
+        Node(T e, int height) {
+            element = e;
+            next = (Node[]) new SkipListSet<?>.Node[height];
+            prev = null;
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares LinkedSet and SkipListSet over a sweep of set sizes. For each
+ * size the benchmark times building a set of shuffled elements, looking up
+ * every element, and taking the union with a second set of the same size.
+ *
+ * Usage: java SkipListSetBenchmark [maxSize]
+ * The sweep doubles from 1,000 up to maxSize (default 32,000). LinkedSet is
+ * skipped above 32,000 elements, where its quadratic build dominates.
+ */
+public class SkipListSetBenchmark {
+
+    private static final int MIN_SIZE = 1000;
+    private static final int DEFAULT_MAX_SIZE = 32000;
+    private static final int LINKED_SET_LIMIT = 32000;
+
+    // sink for lookup results so the JIT cannot drop the loops
+    private static int hits;
+
+    public static void main(String[] args) {
+        int maxSize = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_MAX_SIZE;
+        Random random = new Random(2210);
+        System.out.printf("%10s %12s %10s %10s %10s%n", "size", "set", "add ms", "find ms", "union ms");
+        for (int n = MIN_SIZE; n <= maxSize; n *= 2) {
+            List<Integer> a = shuffled(n, 0, random);
+            List<Integer> b = shuffled(n, n / 2, random);
+            if (n <= LINKED_SET_LIMIT) {
+                run("LinkedSet", n, new LinkedSet<>(), new LinkedSet<>(), a, b);
+            }
+            run("SkipListSet", n, new SkipListSet<>(), new SkipListSet<>(), a, b);
+        }
+        if (hits < 0) {
+            System.out.println(hits);
+        }
+    }
+
+    /** Times add, contains and union for one set implementation and prints a row. */
+    private static void run(String name, int n, Set<Integer> x, Set<Integer> y,
+                            List<Integer> a, List<Integer> b) {
+        long start = System.nanoTime();
+        for (Integer e : a) {
+            x.add(e);
+        }
+        long added = System.nanoTime();
+        for (Integer e : a) {
+            if (x.contains(e)) {
+                hits++;
+            }
+        }
+        long found = System.nanoTime();
+        for (Integer e : b) {
+            y.add(e);
+        }
+        long unionStart = System.nanoTime();
+        hits += x.union(y).size();
+        long end = System.nanoTime();
+        System.out.printf("%10d %12s %10.1f %10.1f %10.1f%n", n, name,
+                (added - start) / 1e6, (found - added) / 1e6, (end - unionStart) / 1e6);
+    }
+
+    /** Returns the integers from..from + n - 1 in random order. */
+    private static List<Integer> shuffled(int n, int from, Random random) {
+        List<Integer> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(from + i);
+        }
+        Collections.shuffle(list, random);
+        return list;
+    }
+
+}